@@ -0,0 +1,123 @@
+package csulb.cecs323.bench;
+
+import csulb.cecs323.model.Isbn;
+import csulb.cecs323.persistence.PersistenceSettings;
+import csulb.cecs323.persistence.RuntimeProfile;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.Map;
+
+/**
+ * An in-memory Derby database holding a synthetic catalog, for the benchmarks to run against.  Every
+ * benchmark trial gets a fresh database, so the results do not depend on what ran before.
+ */
+final class BenchmarkDatabase {
+	private static final int BATCH_SIZE = 1000;
+	private static final String[] AUTHOR_TYPES = {"WritingGroup", "IndividualAuthor", "AdHocTeam"};
+
+	private final String name;
+	private final EntityManagerFactory factory;
+
+	private BenchmarkDatabase(String name, EntityManagerFactory factory) {
+		this.name = name;
+		this.factory = factory;
+	}
+
+	/**
+	 * Create the schema in a new in-memory database and fill it.  Authors cycle through the three
+	 * authoring entity types, and books are spread evenly over the authors and publishers.
+	 */
+	static BenchmarkDatabase create(int publishers, int authors, int books) throws SQLException {
+		String name = "bench" + System.nanoTime();
+		EntityManagerFactory factory = PersistenceSettings.createEntityManagerFactory(RuntimeProfile.MEMORY,
+				Map.of("javax.persistence.jdbc.url", "jdbc:derby:memory:" + name + ";create=true"));
+		BenchmarkDatabase database = new BenchmarkDatabase(name, factory);
+
+		EntityManager manager = factory.createEntityManager();
+		manager.getTransaction().begin();
+		Connection connection = manager.unwrap(Connection.class);
+
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO PUBLISHERS (NAME, EMAIL, PHONE) VALUES (?, ?, ?)")) {
+			for (int i = 0; i < publishers; i++) {
+				insert.setString(1, publisherName(i));
+				insert.setString(2, "publisher" + i + "@bench.com");
+				insert.setString(3, "(555) " + i);
+				addToBatch(insert, i);
+			}
+			insert.executeBatch();
+		}
+
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO AUTHORING_ENTITIES (NAME, AUTHORING_ENTITY_TYPE, EMAIL, HEADWRITER, YEARFORMED) VALUES (?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < authors; i++) {
+				String type = AUTHOR_TYPES[i % AUTHOR_TYPES.length];
+				insert.setString(1, authorName(i));
+				insert.setString(2, type);
+				insert.setString(3, "author" + i + "@bench.com");
+				insert.setString(4, type.equals("WritingGroup") ? "Head Writer " + i : null);
+				insert.setInt(5, 1950 + i % 70);
+				addToBatch(insert, i);
+			}
+			insert.executeBatch();
+		}
+
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_NAME, PUBLISHER_NAME) VALUES (?, ?, ?, ?, ?)")) {
+			for (int i = 0; i < books; i++) {
+				insert.setLong(1, Isbn.parse(isbn(i)));
+				insert.setString(2, "Benchmark Book " + i);
+				insert.setInt(3, 1950 + i % 70);
+				insert.setString(4, authorName(i % authors));
+				insert.setString(5, publisherName(i % publishers));
+				addToBatch(insert, i);
+			}
+			insert.executeBatch();
+		}
+
+		manager.getTransaction().commit();
+		manager.close();
+		return database;
+	}
+
+	EntityManagerFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Close the factory and throw the in-memory database away.
+	 */
+	void drop() {
+		factory.close();
+		try {
+			DriverManager.getConnection("jdbc:derby:memory:" + name + ";drop=true").close();
+		} catch (SQLNonTransientConnectionException expected) {
+			// Derby reports a successful drop with this exception
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static String publisherName(int i) {
+		return String.format("Publisher %07d", i);
+	}
+
+	static String authorName(int i) {
+		return String.format("Author %07d", i);
+	}
+
+	static String isbn(int i) {
+		return Isbn.format(Isbn.withCheckDigit(978_000_000_000L + i));
+	}
+
+	private static void addToBatch(PreparedStatement insert, int i) throws SQLException {
+		insert.addBatch();
+		if ((i + 1) % BATCH_SIZE == 0) insert.executeBatch();
+	}
+}
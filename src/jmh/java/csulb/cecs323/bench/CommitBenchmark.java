@@ -0,0 +1,56 @@
+package csulb.cecs323.bench;
+
+import csulb.cecs323.model.Books;
+import csulb.cecs323.persistence.PersistenceSettings;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How the cost of a commit grows with the number of objects in the persistence context.  The context
+ * holds every book of the catalog and each commit changes the title of just one of them.  Without
+ * weaving EclipseLink finds that change by comparing every managed object with its backup clone, so the
+ * commit gets slower as the context grows; with the woven attribute change tracking only the changed
+ * book is looked at.  Compare a benchmarks jar built normally with one built with -DskipWeaving.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CommitBenchmark {
+
+	@Param({"100", "1000", "10000", "50000"})
+	public int contextSize;
+
+	private BenchmarkDatabase database;
+	private EntityManager manager;
+	private List<Books> books;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		System.out.println("Entities woven: " + PersistenceSettings.isStaticallyWoven());
+		database = BenchmarkDatabase.create(10, 100, contextSize);
+		manager = database.getFactory().createEntityManager();
+		books = manager.createQuery("SELECT b FROM Books b", Books.class).getResultList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		manager.close();
+		database.drop();
+	}
+
+	@Benchmark
+	public void commitOneChange() {
+		manager.getTransaction().begin();
+		Books book = books.get(next++ % books.size());
+		book.setTitle("Changed " + next);
+		manager.getTransaction().commit();
+	}
+}
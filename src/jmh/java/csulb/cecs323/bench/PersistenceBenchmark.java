@@ -0,0 +1,159 @@
+package csulb.cecs323.bench;
+
+import csulb.cecs323.app.JPABooksProject;
+import csulb.cecs323.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The persistence paths that every screen of the application goes through.  Each operation uses a
+ * fresh EntityManager, as a screen of the application would, so nothing is answered from a persistence
+ * context left over from the previous operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+	private static final int INSERT_BATCH = 100;
+
+	@Param({"100"})
+	public int publishers;
+
+	@Param({"1000"})
+	public int authors;
+
+	@Param({"10000"})
+	public int books;
+
+	private BenchmarkDatabase database;
+	private int nextIsbn;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = BenchmarkDatabase.create(publishers, authors, books);
+		nextIsbn = books;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		database.drop();
+	}
+
+	@Benchmark
+	public Publishers getPublisher() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			String name = BenchmarkDatabase.publisherName(ThreadLocalRandom.current().nextInt(publishers));
+			return new JPABooksProject(manager).getPublisher(name);
+		} finally {
+			manager.close();
+		}
+	}
+
+	@Benchmark
+	public int returnAllPublishers() {
+		return namedQuerySize("ReturnAllPublishers", Publishers.class);
+	}
+
+	@Benchmark
+	public int returnAllAuthors() {
+		return namedQuerySize("ReturnAllAuthors", Authoring_Entities.class);
+	}
+
+	@Benchmark
+	public int returnAllBooks() {
+		return namedQuerySize("ReturnAllBooks", Books.class);
+	}
+
+	@Benchmark
+	public int returnAllWritingGroups() {
+		return namedQuerySize("ReturnAllWritingGroups", Writing_Groups.class);
+	}
+
+	@Benchmark
+	public int returnAllIndividualAuthors() {
+		return namedQuerySize("ReturnAllIndividualAuthors", IndividualAuthor.class);
+	}
+
+	@Benchmark
+	public int returnAllAdHocTeams() {
+		return namedQuerySize("ReturnAllAdHocTeams", AdHocTeam.class);
+	}
+
+	/**
+	 * Inserts a batch of books through createEntity, committing them as the main loop would.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(INSERT_BATCH)
+	public void createEntityBooks() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			List<Books> batch = new ArrayList<>(INSERT_BATCH);
+			for (int i = 0; i < INSERT_BATCH; i++) {
+				int n = nextIsbn++;
+				Books book = new Books();
+				book.setISBN(BenchmarkDatabase.isbn(n));
+				book.setTitle("Inserted Book " + n);
+				book.setYearPublished(2000);
+				book.setAuthor(CatalogKeys.authorReference(manager, Authoring_Entities.class, BenchmarkDatabase.authorName(n % authors)));
+				book.setPublisher(CatalogKeys.publisherReference(manager, BenchmarkDatabase.publisherName(n % publishers)));
+				batch.add(book);
+			}
+			new JPABooksProject(manager).createEntity(batch);
+			manager.getTransaction().commit();
+		} finally {
+			manager.close();
+		}
+	}
+
+	/**
+	 * The book detail screen as it would be reached by navigating the lazy associations.
+	 */
+	@Benchmark
+	public String bookDetailLazy() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			Books book = manager.find(Books.class, randomIsbn());
+			return book.getAuthor().getName() + book.getPublisher().getName();
+		} finally {
+			manager.close();
+		}
+	}
+
+	/**
+	 * The book detail screen through getBookDetail, which fetches the associations with the book.
+	 */
+	@Benchmark
+	public String bookDetailFetchJoin() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			Books book = new JPABooksProject(manager).getBookDetail(randomIsbn());
+			return book.getAuthor().getName() + book.getPublisher().getName();
+		} finally {
+			manager.close();
+		}
+	}
+
+	private String randomIsbn() {
+		return BenchmarkDatabase.isbn(ThreadLocalRandom.current().nextInt(books));
+	}
+
+	private <T> int namedQuerySize(String queryName, Class<T> type) {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			return manager.createNamedQuery(queryName, type).getResultList().size();
+		} finally {
+			manager.close();
+		}
+	}
+}
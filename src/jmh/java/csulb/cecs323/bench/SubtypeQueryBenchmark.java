@@ -0,0 +1,64 @@
+package csulb.cecs323.bench;
+
+import csulb.cecs323.model.Authoring_Entities;
+import csulb.cecs323.model.Writing_Groups;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways of listing the writing groups: reading every authoring entity and filtering
+ * with instanceof (as getWritingGroups used to), against the ReturnAllWritingGroups query which lets
+ * the database filter on the discriminator.  A third of the authors are writing groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SubtypeQueryBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int authors;
+
+	private BenchmarkDatabase database;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		database = BenchmarkDatabase.create(1, authors, 0);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		database.drop();
+	}
+
+	@Benchmark
+	public int filterInJava() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			List<Writing_Groups> result = new ArrayList<>();
+			for (Authoring_Entities author : manager.createNamedQuery("ReturnAllAuthors", Authoring_Entities.class).getResultList()) {
+				if (author instanceof Writing_Groups) result.add((Writing_Groups) author);
+			}
+			return result.size();
+		} finally {
+			manager.close();
+		}
+	}
+
+	@Benchmark
+	public int filterOnDiscriminator() {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			return manager.createNamedQuery("ReturnAllWritingGroups", Writing_Groups.class).getResultList().size();
+		} finally {
+			manager.close();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.Authoring_Entities;
+import csulb.cecs323.model.Books;
+import csulb.cecs323.model.CatalogKeys;
+import csulb.cecs323.search.BookSearchListener;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+/**
+ * Removes or reassigns many books at once.  Each operation is a single UPDATE or DELETE statement run
+ * in the database, rather than loading and removing one managed book at a time, and returns the number
+ * of books it affected.
+ * <p>
+ * Since the statements bypass the persistence context, each operation first flushes pending changes,
+ * and afterwards clears the persistence context so no stale book is handed out from it.  EclipseLink
+ * invalidates the Books shared cache itself for bulk statements; the authoring entities are evicted
+ * here as well, because their works collections may now list books that have gone.  The statements
+ * leave nothing in the change set the search index is kept current from, so each operation hands
+ * its change to {@link BookSearchListener#afterCommit}, which applies it if the transaction commits.
+ * The operations run in the caller's transaction.
+ */
+public class BulkBookOperations {
+	private final EntityManager manager;
+
+	public BulkBookOperations(EntityManager manager) {
+		this.manager = manager;
+	}
+
+	public int deleteBooksByPublisher(String publisherName) {
+		int affected = execute(manager.createNamedQuery("DeleteBooksByPublisher")
+				.setParameter("publisher", CatalogKeys.publisherReference(manager, publisherName)));
+		BookSearchListener.afterCommit(manager, index -> index.removeIf(book -> book.publisher().equals(publisherName)));
+		return affected;
+	}
+
+	public int deleteBooksByAuthor(String authorName) {
+		int affected = execute(manager.createNamedQuery("DeleteBooksByAuthor")
+				.setParameter("author", CatalogKeys.authorReference(manager, Authoring_Entities.class, authorName)));
+		BookSearchListener.afterCommit(manager, index -> index.removeIf(book -> book.author().equals(authorName)));
+		return affected;
+	}
+
+	/**
+	 * @param firstYear  The first publication year to delete, inclusive.
+	 * @param lastYear   The last publication year to delete, inclusive.
+	 */
+	public int deleteBooksByYearRange(int firstYear, int lastYear) {
+		if (firstYear > lastYear) throw new IllegalArgumentException("The first year cannot come after the last year.");
+		int affected = execute(manager.createNamedQuery("DeleteBooksByYearRange")
+				.setParameter("firstYear", firstYear)
+				.setParameter("lastYear", lastYear));
+		BookSearchListener.afterCommit(manager, index -> index.removeIf(book -> book.year() >= firstYear && book.year() <= lastYear));
+		return affected;
+	}
+
+	/**
+	 * Move every book of one publisher to another.
+	 */
+	public int reassignPublisher(String oldPublisherName, String newPublisherName) {
+		if (oldPublisherName.equals(newPublisherName)) throw new IllegalArgumentException("The publishers must be different.");
+		int affected = execute(manager.createNamedQuery("ReassignBooksPublisher")
+				.setParameter("oldPublisher", CatalogKeys.publisherReference(manager, oldPublisherName))
+				.setParameter("newPublisher", CatalogKeys.publisherReference(manager, newPublisherName)));
+		BookSearchListener.afterCommit(manager, index -> index.reassignPublisher(oldPublisherName, newPublisherName));
+		return affected;
+	}
+
+	private int execute(Query statement) {
+		manager.flush();
+		int affected = statement.executeUpdate();
+		manager.clear();
+		manager.getEntityManagerFactory().getCache().evict(Books.class);
+		manager.getEntityManagerFactory().getCache().evict(Authoring_Entities.class);
+		return affected;
+	}
+}
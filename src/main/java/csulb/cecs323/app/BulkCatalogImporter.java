@@ -0,0 +1,174 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads a whole publisher catalog from files, rather than one object at a time through the menus.
+ * A catalog directory holds up to three files, publishers, authors and books, each either CSV or
+ * newline delimited JSON, with the fields described in {@link CatalogRecords}.
+ * The files are streamed and written in chunks: the authors and publishers a chunk refers to are read
+ * with one query, then the chunk is persisted, committed (which lets EclipseLink send the inserts as
+ * JDBC batches) and cleared from the persistence context, so the memory used stays the same no matter
+ * how large the catalog is.
+ */
+public class BulkCatalogImporter {
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	private final EntityManagerFactory factory;
+	private final int chunkSize;
+
+	public BulkCatalogImporter(EntityManagerFactory factory, int chunkSize) {
+		if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+		this.factory = factory;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Import every catalog file found in the directory, publishers and authors before the books that
+	 * refer to them.
+	 * @param directory  The directory holding the catalog files.
+	 * @return           The total number of rows imported.
+	 */
+	public long importDirectory(Path directory) throws IOException {
+		long start = System.nanoTime();
+		long total = importPublishersAndAuthors(directory);
+
+		Path books = CatalogRecordReader.find(directory, "books");
+		if (books != null) total += importFile(books, BulkCatalogImporter::toBook);
+
+		report("all files", total, System.nanoTime() - start);
+		return total;
+	}
+
+	/**
+	 * Import the publishers and authors files found in the directory, the entities that books refer to.
+	 * @param directory  The directory holding the catalog files.
+	 * @return           The number of rows imported.
+	 */
+	public long importPublishersAndAuthors(Path directory) throws IOException {
+		long total = 0;
+
+		Path publishers = CatalogRecordReader.find(directory, "publishers");
+		if (publishers != null) total += importFile(publishers, BulkCatalogImporter::toPublisher);
+
+		Path authors = CatalogRecordReader.find(directory, "authors");
+		if (authors != null) total += importFile(authors, BulkCatalogImporter::toAuthor);
+
+		return total;
+	}
+
+	/**
+	 * Stream one file into the database, one chunk per transaction.
+	 * @param file     The CSV or NDJSON file to read.
+	 * @param mapper   Turns one record into the entity to persist.
+	 * @return         The number of rows imported.
+	 */
+	public long importFile(Path file, RecordMapper mapper) throws IOException {
+		long count = 0;
+		long start = System.nanoTime();
+		EntityManager manager = factory.createEntityManager();
+
+		try (CatalogRecordReader reader = new CatalogRecordReader(file)) {
+			ChunkState chunk = new ChunkState(manager);
+			List<Map<String, String>> records = new ArrayList<>(chunkSize);
+			long[] lines = new long[chunkSize];
+
+			while (reader.hasNext()) {
+				records.add(reader.next());
+				lines[records.size() - 1] = reader.getLineNumber();
+
+				if (records.size() == chunkSize) {
+					count += writeChunk(manager, file, mapper, chunk, records, lines);
+				}
+			}
+
+			if (!records.isEmpty()) count += writeChunk(manager, file, mapper, chunk, records, lines);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+
+		report(file.getFileName().toString(), count, System.nanoTime() - start);
+		return count;
+	}
+
+	private static int writeChunk(EntityManager manager, Path file, RecordMapper mapper, ChunkState chunk,
+	                              List<Map<String, String>> records, long[] lines) {
+		manager.getTransaction().begin();
+		// the authors and publishers the chunk names are read with one query each, not one per record
+		CatalogRecords.loadReferences(chunk.references, records);
+
+		for (int i = 0; i < records.size(); i++) {
+			try {
+				manager.persist(mapper.map(records.get(i), chunk));
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException(file.getFileName() + " line " + lines[i] + ": " + e.getMessage(), e);
+			}
+		}
+
+		// commit sends the chunk as batched inserts; clearing detaches everything so memory stays bounded
+		manager.getTransaction().commit();
+		manager.clear();
+		chunk.individualAuthors.clear();
+		chunk.references.clear();
+
+		int written = records.size();
+		records.clear();
+		return written;
+	}
+
+	static void report(String what, long rows, long nanos) {
+		double seconds = nanos / 1_000_000_000.0;
+		double rate = seconds > 0 ? rows / seconds : rows;
+		System.out.printf("Imported %d rows from %s in %.2f s (%.0f rows/sec)%n", rows, what, seconds, rate);
+	}
+
+	private static Publishers toPublisher(Map<String, String> record, ChunkState chunk) {
+		return CatalogRecords.toPublisher(record);
+	}
+
+	private static Authoring_Entities toAuthor(Map<String, String> record, ChunkState chunk) {
+		Authoring_Entities author = CatalogRecords.toAuthor(record, name -> {
+			// members persisted earlier in this chunk have not been flushed yet
+			IndividualAuthor member = chunk.individualAuthors.get(name);
+			return member != null ? member : chunk.references.author(IndividualAuthor.class, name);
+		});
+		if (author instanceof IndividualAuthor individual) chunk.individualAuthors.put(individual.getName(), individual);
+		return author;
+	}
+
+	private static Books toBook(Map<String, String> record, ChunkState chunk) {
+		return CatalogRecords.toBook(record, chunk.references);
+	}
+
+	/**
+	 * Converts one record of a catalog file into the entity that should be persisted for it, resolving
+	 * the authors and publishers it names through the chunk.
+	 */
+	@FunctionalInterface
+	public interface RecordMapper {
+		Object map(Map<String, String> record, ChunkState chunk);
+	}
+
+	/**
+	 * What the mappers need to know about the chunk currently being written.
+	 */
+	public static class ChunkState {
+		private final Map<String, IndividualAuthor> individualAuthors = new HashMap<>();
+		private final CatalogReferences references;
+
+		private ChunkState(EntityManager manager) {
+			this.references = new CatalogReferences(manager);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package csulb.cecs323.app;
+
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.queries.CursoredStream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes every book, joined with its author and publisher, to a CSV or newline delimited JSON file
+ * (chosen by the file extension) for the downstream feeds.  The rows are read through a forward-only
+ * database cursor, a fetch size at a time, and written straight out through a buffered file channel,
+ * so the memory used does not depend on the size of the catalog.
+ * <p>
+ * The CSV columns are a superset of the books file read by {@link BulkCatalogImporter}, so an export
+ * can be imported again.
+ */
+public class CatalogExporter {
+	public static final int DEFAULT_FETCH_SIZE = 1000;
+
+	private static final String[] COLUMNS =
+			{"isbn", "title", "yearPublished", "author", "authorEmail", "publisher", "publisherEmail", "publisherPhone"};
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final EntityManagerFactory factory;
+	private final int fetchSize;
+
+	public CatalogExporter(EntityManagerFactory factory, int fetchSize) {
+		if (fetchSize <= 0) throw new IllegalArgumentException("Fetch size must be positive.");
+		this.factory = factory;
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * @param file  The file to write, ending in .csv, .ndjson or .json.  It is replaced if it exists.
+	 * @return      The number of books written.
+	 */
+	public long export(Path file) throws IOException {
+		boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+		long start = System.nanoTime();
+		long count = 0;
+
+		EntityManager manager = factory.createEntityManager();
+		CursoredStream cursor = null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		     Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+			// a CursoredStream reads a forward-only result set, which Derby can stream without materializing it
+			cursor = (CursoredStream) manager.createNamedQuery("ExportBooks")
+					.setHint(QueryHints.CURSOR, HintValues.TRUE)
+					.setHint(QueryHints.CURSOR_PAGE_SIZE, fetchSize)
+					.setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize)
+					.setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+					.getSingleResult();
+
+			if (csv) out.write(String.join(",", COLUMNS) + "\n");
+
+			while (cursor.hasNext()) {
+				Object[] row = (Object[]) cursor.next();
+				if (csv) writeCsv(out, row);
+				else writeJson(out, row);
+
+				// let go of the rows already written, or the stream keeps them all
+				if (++count % fetchSize == 0) cursor.releasePrevious();
+			}
+		} finally {
+			if (cursor != null) cursor.close();
+			manager.close();
+		}
+
+		double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+		System.out.printf("Exported %d books to %s in %.2f s (%.0f rows/sec)%n", count, file, seconds,
+				seconds > 0 ? count / seconds : count);
+		return count;
+	}
+
+	private static void writeCsv(Writer out, Object[] row) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < row.length; i++) {
+			if (i > 0) line.append(',');
+			String value = row[i] == null ? "" : row[i].toString();
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+				line.append('"').append(value.replace("\"", "\"\"")).append('"');
+			}
+			else line.append(value);
+		}
+		out.write(line.append('\n').toString());
+	}
+
+	private static void writeJson(Writer out, Object[] row) throws IOException {
+		Map<String, Object> record = new LinkedHashMap<>();
+		for (int i = 0; i < row.length; i++) record.put(COLUMNS[i], row[i]);
+		out.write(Json.writeObject(record));
+		out.write('\n');
+	}
+}
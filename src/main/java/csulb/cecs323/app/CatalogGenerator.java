@@ -0,0 +1,449 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.Isbn;
+import csulb.cecs323.persistence.PersistenceSettings;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills the database with a synthetic catalog of any size, to try the queries and menus against a
+ * production sized one.  Publishers, writing groups, individual authors and ad hoc teams (whose members
+ * are individual authors) are written first, then the books.  The books are spread over the authors and
+ * the publishers by Zipf distributions, so a few of them have very many books and most only a few, and
+ * their years lean towards the most recent ones; see {@link Shape}.
+ * <p>
+ * The rows are written straight through JDBC batches rather than as entities, in blocks of
+ * {@value #BLOCK_SIZE} rows, each block in its own transaction.  Every block draws from its own random
+ * stream derived from the seed, and names are derived from the seed and the row number alone, so the
+ * same seed and shape always give the same catalog, however many workers write it.
+ * <p>
+ * Every name carries its row number, so generating into a database that already holds a generated
+ * catalog fails on the first duplicate key; start from an empty one (or the seed data).  With surrogate
+ * keys the IDs are numbered on from the highest one given out, and the ID counters moved past them.
+ * The rows bypass EclipseLink, so the shared cache is cleared afterwards.
+ */
+public class CatalogGenerator {
+	public static final long DEFAULT_SEED = 323;
+	private static final int BLOCK_SIZE = 10_000;
+	private static final int BATCH_SIZE = 1000;
+
+	/** Of every ten authors, by their row number: six individual authors, two writing groups and two ad hoc teams. */
+	private static final int INDIVIDUALS_PER_TEN = 6;
+	private static final int WRITING_GROUPS_PER_TEN = 2;
+
+	// mixed into the seed so the kinds of row draw from different streams
+	private static final long PUBLISHER_STREAM = 1;
+	private static final long AUTHOR_STREAM = 2;
+	private static final long MEMBER_STREAM = 3;
+	private static final long BOOK_STREAM = 4;
+
+	private static final String[] FIRST_NAMES = {"Ada", "Amara", "Arjun", "Beatriz", "Chen", "Dmitri", "Elena",
+			"Farah", "Gabriel", "Hana", "Ines", "Jamal", "Kenji", "Lena", "Mateo", "Nadia", "Oscar", "Priya",
+			"Quinn", "Rosa", "Samuel", "Tariq", "Uma", "Victor", "Wen", "Yusuf", "Zora"};
+	private static final String[] LAST_NAMES = {"Abara", "Becker", "Castillo", "Dubois", "Eriksen", "Fujita",
+			"Gonzalez", "Haddad", "Ivanova", "Jensen", "Kowalski", "Lindqvist", "Moreau", "Nakamura", "Okafor",
+			"Petrov", "Quispe", "Rossi", "Silva", "Tanaka", "Usman", "Varga", "Walsh", "Xu", "Yilmaz", "Zimmer"};
+	private static final String[] ADJECTIVES = {"Silent", "Crimson", "Hidden", "Golden", "Broken", "Distant",
+			"Quiet", "Burning", "Frozen", "Wandering", "Last", "Secret", "Endless", "Hollow", "Bright", "Lost",
+			"Iron", "Velvet", "Northern", "Forgotten", "Wild", "Silver", "Sleeping", "Restless"};
+	private static final String[] NOUNS = {"River", "Lantern", "Garden", "Harbor", "Mountain", "Library",
+			"Orchard", "Tide", "Compass", "Forest", "Mirror", "Bridge", "Winter", "Kingdom", "Signal", "Island",
+			"Meadow", "Clock", "Voyage", "Storm", "Archive", "Valley", "Ember", "Atlas"};
+	private static final String[] IMPRINTS = {"Press", "Books", "House", "Publishing", "Editions", "Media"};
+
+	private final EntityManagerFactory factory;
+	private final Shape shape;
+	private final long seed;
+	private final int workers;
+	private final boolean surrogateKeys = PersistenceSettings.isSurrogateKeys();
+
+	// with surrogate keys, the IDs of the generated rows follow these
+	private long publisherIds;
+	private long authorIds;
+
+	/**
+	 * @param workers  The number of blocks written at once.  The connection pool must allow at least
+	 *                 this many connections.
+	 */
+	public CatalogGenerator(EntityManagerFactory factory, Shape shape, long seed, int workers) {
+		if (workers <= 0) throw new IllegalArgumentException("Workers must be positive.");
+		this.factory = factory;
+		this.shape = shape;
+		this.seed = seed;
+		this.workers = workers;
+	}
+
+	/**
+	 * How large a catalog to generate, and how its books are spread.
+	 * @param books          The number of books, up to a billion (they get ISBNs 978000000000x on).
+	 * @param authors        The number of authoring entities, of all three types.
+	 * @param publishers     The number of publishers.
+	 * @param authorSkew     The Zipf exponent of the books per author, 0 for an even spread.
+	 * @param publisherSkew  The Zipf exponent of the books per publisher.
+	 * @param firstYear      The earliest year a book is published or a writing group formed.
+	 * @param lastYear       The latest such year, the most common one.
+	 * @param yearSkew       The Zipf exponent of the years counted back from the last, 0 for an even spread.
+	 * @param maxTeamSize    The most members an ad hoc team has; teams have from two up to this many.
+	 */
+	public record Shape(long books, int authors, int publishers, double authorSkew, double publisherSkew,
+						int firstYear, int lastYear, double yearSkew, int maxTeamSize) {
+		public Shape {
+			if (books < 0 || books > 1_000_000_000L) throw new IllegalArgumentException("Books must be from 0 to a billion.");
+			if (authors <= 0 || publishers <= 0) throw new IllegalArgumentException("Authors and publishers must be positive.");
+			if (authorSkew < 0 || publisherSkew < 0 || yearSkew < 0) throw new IllegalArgumentException("Skews must not be negative.");
+			if (firstYear > lastYear) throw new IllegalArgumentException("The first year must not be after the last.");
+			if (maxTeamSize < 2) throw new IllegalArgumentException("Teams must allow at least two members.");
+		}
+
+		/**
+		 * A catalog of the given number of books, shaped by the jpabooks.generate system properties:
+		 * authors (a twentieth of the books by default), publishers (a two thousandth), authorSkew and
+		 * publisherSkew (1.1), firstYear and lastYear (1900 to 2025), yearSkew (0.5) and maxTeamSize (6).
+		 */
+		public static Shape configured(long books) {
+			return new Shape(books,
+					Integer.getInteger("jpabooks.generate.authors", (int) Math.max(1, books / 20)),
+					Integer.getInteger("jpabooks.generate.publishers", (int) Math.max(1, books / 2000)),
+					doubleProperty("jpabooks.generate.authorSkew", 1.1),
+					doubleProperty("jpabooks.generate.publisherSkew", 1.1),
+					Integer.getInteger("jpabooks.generate.firstYear", 1900),
+					Integer.getInteger("jpabooks.generate.lastYear", 2025),
+					doubleProperty("jpabooks.generate.yearSkew", 0.5),
+					Integer.getInteger("jpabooks.generate.maxTeamSize", 6));
+		}
+
+		private static double doubleProperty(String name, double otherwise) {
+			String value = System.getProperty(name);
+			return value == null ? otherwise : Double.parseDouble(value);
+		}
+	}
+
+	/**
+	 * Write the whole catalog.
+	 * @return The number of rows written, team memberships included.
+	 */
+	public long generate() throws InterruptedException {
+		long start = System.nanoTime();
+		if (surrogateKeys) {
+			publisherIds = highestId("PUBLISHERS");
+			authorIds = highestId("AUTHORING_ENTITIES");
+		}
+
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "catalog-generate-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		long total = 0;
+		try {
+			total += writeBlocks(pool, "publishers", shape.publishers(), PUBLISHER_STREAM, this::writePublishers);
+			total += writeBlocks(pool, "authors", shape.authors(), AUTHOR_STREAM, this::writeAuthors);
+			// the members are written once every author is committed, since they refer to individual authors of any block
+			total += writeBlocks(pool, "team members", shape.authors(), MEMBER_STREAM, this::writeTeamMembers);
+			total += writeBlocks(pool, "books", shape.books(), BOOK_STREAM, this::writeBooks);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		if (surrogateKeys) {
+			moveIdCounter("PUBLISHERS", publisherIds + shape.publishers());
+			moveIdCounter("AUTHORING_ENTITIES", authorIds + shape.authors());
+		}
+		factory.getCache().evictAll();
+		report("the catalog", total, System.nanoTime() - start);
+		return total;
+	}
+
+	@FunctionalInterface
+	private interface BlockWriter {
+		/**
+		 * Write rows first to end - 1.
+		 * @return The number of rows written.
+		 */
+		long write(Connection connection, long first, long end, SplittableRandom random) throws SQLException;
+	}
+
+	/**
+	 * Write rows 0 to count - 1 by the block, each block on one of the workers in its own transaction.
+	 */
+	private long writeBlocks(ExecutorService pool, String what, long count, long stream, BlockWriter writer) throws InterruptedException {
+		long start = System.nanoTime();
+		List<Future<Long>> blocks = new ArrayList<>();
+		for (long first = 0; first < count; first += BLOCK_SIZE) {
+			long from = first;
+			long end = Math.min(count, first + BLOCK_SIZE);
+			SplittableRandom random = new SplittableRandom(mix(mix(seed, stream), first / BLOCK_SIZE));
+			blocks.add(pool.submit(() -> writeBlock(writer, from, end, random)));
+		}
+
+		long rows = 0;
+		try {
+			for (Future<Long> block : blocks) rows += block.get();
+		} catch (ExecutionException e) {
+			blocks.forEach(block -> block.cancel(true));
+			throw new IllegalStateException("Generating " + what + " failed: " + e.getCause().getMessage(), e.getCause());
+		}
+		report(what, rows, System.nanoTime() - start);
+		return rows;
+	}
+
+	private long writeBlock(BlockWriter writer, long first, long end, SplittableRandom random) throws SQLException {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			long rows = writer.write(manager.unwrap(Connection.class), first, end, random);
+			manager.getTransaction().commit();
+			return rows;
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private long writePublishers(Connection connection, long first, long end, SplittableRandom random) throws SQLException {
+		String sql = surrogateKeys
+				? "INSERT INTO PUBLISHERS (ID, NAME, EMAIL, PHONE) VALUES (?, ?, ?, ?)"
+				: "INSERT INTO PUBLISHERS (NAME, EMAIL, PHONE) VALUES (?, ?, ?)";
+		try (PreparedStatement insert = connection.prepareStatement(sql)) {
+			for (long i = first; i < end; i++) {
+				int column = 1;
+				if (surrogateKeys) insert.setLong(column++, publisherIds + i + 1);
+				insert.setString(column++, publisherName(i));
+				insert.setString(column++, "publisher" + i + "@example.com");
+				// unique, as the column requires: the row number spelled out as a phone number
+				insert.setString(column, String.format("(%03d) %03d-%04d", i / 10_000_000, i / 10_000 % 1000, i % 10_000));
+				addToBatch(insert, i - first);
+			}
+			insert.executeBatch();
+		}
+		return end - first;
+	}
+
+	private long writeAuthors(Connection connection, long first, long end, SplittableRandom random) throws SQLException {
+		ZipfDistribution yearsBack = new ZipfDistribution(shape.lastYear() - shape.firstYear() + 1, shape.yearSkew());
+		String sql = surrogateKeys
+				? "INSERT INTO AUTHORING_ENTITIES (ID, NAME, AUTHORING_ENTITY_TYPE, EMAIL, HEADWRITER, YEARFORMED) VALUES (?, ?, ?, ?, ?, ?)"
+				: "INSERT INTO AUTHORING_ENTITIES (NAME, AUTHORING_ENTITY_TYPE, EMAIL, HEADWRITER, YEARFORMED) VALUES (?, ?, ?, ?, ?)";
+		try (PreparedStatement insert = connection.prepareStatement(sql)) {
+			for (long i = first; i < end; i++) {
+				int column = 1;
+				if (surrogateKeys) insert.setLong(column++, authorIds + i + 1);
+				insert.setString(column++, authorName(i));
+				insert.setString(column++, authorType(i));
+				insert.setString(column++, "author" + i + "@example.com");
+				if (isWritingGroup(i)) {
+					insert.setString(column++, personName(mix(seed, ~i)));
+					insert.setInt(column, (int) (shape.lastYear() - yearsBack.sample(random) + 1));
+				} else {
+					insert.setNull(column++, Types.VARCHAR);
+					insert.setNull(column, Types.INTEGER);
+				}
+				addToBatch(insert, i - first);
+			}
+			insert.executeBatch();
+		}
+		return end - first;
+	}
+
+	private long writeTeamMembers(Connection connection, long first, long end, SplittableRandom random) throws SQLException {
+		long individuals = individualsBefore(shape.authors());
+		String sql = surrogateKeys
+				? "INSERT INTO AD_HOC_TEAMS_MEMBER (AD_HOC_TEAM_ID, INDIVIDUAL_AUTHOR_ID) VALUES (?, ?)"
+				: "INSERT INTO AD_HOC_TEAMS_MEMBER (AD_HOC_TEAMS_EMAIL, INDIVIDUAL_AUTHORS_EMAIL) VALUES (?, ?)";
+		long rows = 0;
+		try (PreparedStatement insert = connection.prepareStatement(sql)) {
+			long[] members = new long[shape.maxTeamSize()];
+			for (long team = first; team < end; team++) {
+				if (!isAdHocTeam(team)) continue;
+				int size = (int) Math.min(individuals, 2 + random.nextInt(shape.maxTeamSize() - 1));
+				for (int m = 0; m < size; m++) {
+					members[m] = pickNewMember(members, m, individuals, random);
+					setAuthorKey(insert, 1, team);
+					setAuthorKey(insert, 2, members[m]);
+					addToBatch(insert, rows++);
+				}
+			}
+			insert.executeBatch();
+		}
+		return rows;
+	}
+
+	private long writeBooks(Connection connection, long first, long end, SplittableRandom random) throws SQLException {
+		ZipfDistribution authors = new ZipfDistribution(shape.authors(), shape.authorSkew());
+		ZipfDistribution publishers = new ZipfDistribution(shape.publishers(), shape.publisherSkew());
+		ZipfDistribution yearsBack = new ZipfDistribution(shape.lastYear() - shape.firstYear() + 1, shape.yearSkew());
+		String sql = surrogateKeys
+				? "INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_ID, PUBLISHER_ID) VALUES (?, ?, ?, ?, ?)"
+				: "INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_NAME, PUBLISHER_NAME) VALUES (?, ?, ?, ?, ?)";
+		try (PreparedStatement insert = connection.prepareStatement(sql)) {
+			for (long i = first; i < end; i++) {
+				insert.setLong(1, isbn(i));
+				insert.setString(2, title(random));
+				insert.setInt(3, (int) (shape.lastYear() - yearsBack.sample(random) + 1));
+				// the most popular author and publisher are the first ones
+				setAuthorKey(insert, 4, authors.sample(random) - 1);
+				long publisher = publishers.sample(random) - 1;
+				if (surrogateKeys) insert.setLong(5, publisherIds + publisher + 1);
+				else insert.setString(5, publisherName(publisher));
+				addToBatch(insert, i - first);
+			}
+			insert.executeBatch();
+		}
+		return end - first;
+	}
+
+	/**
+	 * @return An individual author not among the first count members already picked.
+	 */
+	private static long pickNewMember(long[] members, int count, long individuals, SplittableRandom random) {
+		while (true) {
+			long ordinal = random.nextLong(individuals);
+			// the individual authors are the first six of every ten rows
+			long member = ordinal / INDIVIDUALS_PER_TEN * 10 + ordinal % INDIVIDUALS_PER_TEN;
+			boolean picked = false;
+			for (int m = 0; m < count && !picked; m++) picked = members[m] == member;
+			if (!picked) return member;
+		}
+	}
+
+	private void setAuthorKey(PreparedStatement insert, int column, long author) throws SQLException {
+		if (surrogateKeys) insert.setLong(column, authorIds + author + 1);
+		else insert.setString(column, authorName(author));
+	}
+
+	private static void addToBatch(PreparedStatement insert, long row) throws SQLException {
+		insert.addBatch();
+		if ((row + 1) % BATCH_SIZE == 0) insert.executeBatch();
+	}
+
+	private long highestId(String table) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			// the connection is only held, and can only be unwrapped, inside a transaction
+			manager.getTransaction().begin();
+			Connection connection = manager.unwrap(Connection.class);
+			long highest = 0;
+			try (PreparedStatement select = connection.prepareStatement("SELECT MAX(ID) FROM " + table);
+				 ResultSet rows = select.executeQuery()) {
+				if (rows.next()) highest = rows.getLong(1);
+			}
+			try (PreparedStatement select = connection.prepareStatement("SELECT SEQ_COUNT FROM CATALOG_SEQUENCES WHERE SEQ_NAME = ?")) {
+				select.setString(1, table);
+				try (ResultSet rows = select.executeQuery()) {
+					if (rows.next()) highest = Math.max(highest, rows.getLong(1));
+				}
+			}
+			return highest;
+		} catch (SQLException e) {
+			throw new IllegalStateException("Reading the IDs of " + table + " failed: " + e.getMessage(), e);
+		} finally {
+			manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private void moveIdCounter(String table, long highest) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			try (PreparedStatement update = manager.unwrap(Connection.class).prepareStatement(
+					"UPDATE CATALOG_SEQUENCES SET SEQ_COUNT = ? WHERE SEQ_NAME = ?")) {
+				update.setLong(1, highest);
+				update.setString(2, table);
+				update.executeUpdate();
+			}
+			manager.getTransaction().commit();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Moving the ID counter of " + table + " failed: " + e.getMessage(), e);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private String publisherName(long i) {
+		long h = mix(seed, i);
+		return word(ADJECTIVES, h) + " " + word(NOUNS, h >>> 16) + " " + word(IMPRINTS, h >>> 32) + " " + i;
+	}
+
+	private String authorName(long i) {
+		long h = mix(seed, i);
+		if (isWritingGroup(i)) return "The " + word(ADJECTIVES, h) + " " + word(NOUNS, h >>> 16) + " Circle " + i;
+		if (isAdHocTeam(i)) return word(NOUNS, h) + " Team " + i;
+		return personName(h) + " " + i;
+	}
+
+	private static String personName(long h) {
+		return word(FIRST_NAMES, h) + " " + word(LAST_NAMES, h >>> 16);
+	}
+
+	private static String title(SplittableRandom random) {
+		String title = "The " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+		return random.nextInt(3) == 0 ? title + " of the " + NOUNS[random.nextInt(NOUNS.length)] : title;
+	}
+
+	private static String word(String[] words, long h) {
+		return words[(int) ((h & 0xFFFF) % words.length)];
+	}
+
+	private static String authorType(long i) {
+		if (isWritingGroup(i)) return "WritingGroup";
+		if (isAdHocTeam(i)) return "AdHocTeam";
+		return "IndividualAuthor";
+	}
+
+	private static boolean isWritingGroup(long i) {
+		long place = i % 10;
+		return place >= INDIVIDUALS_PER_TEN && place < INDIVIDUALS_PER_TEN + WRITING_GROUPS_PER_TEN;
+	}
+
+	private static boolean isAdHocTeam(long i) {
+		return i % 10 >= INDIVIDUALS_PER_TEN + WRITING_GROUPS_PER_TEN;
+	}
+
+	/**
+	 * @return The number of individual authors among rows 0 to end - 1.
+	 */
+	private static long individualsBefore(long end) {
+		return end / 10 * INDIVIDUALS_PER_TEN + Math.min(end % 10, INDIVIDUALS_PER_TEN);
+	}
+
+	/**
+	 * An ISBN-13 in the 978 prefix, with the row number as the rest, as it is stored.
+	 */
+	private static long isbn(long i) {
+		return Isbn.withCheckDigit(978_000_000_000L + i);
+	}
+
+	/**
+	 * Combine two numbers into a well spread one (the finalizer of SplitMix64), for deriving the
+	 * random streams and names from the seed.
+	 */
+	private static long mix(long a, long b) {
+		long z = a * 0x9E3779B97F4A7C15L + b;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static void report(String what, long rows, long nanos) {
+		double seconds = nanos / 1_000_000_000.0;
+		double rate = seconds > 0 ? rows / seconds : rows;
+		System.out.printf("Generated %d rows of %s in %.2f s (%.0f rows/sec)%n", rows, what, seconds, rate);
+	}
+}
@@ -0,0 +1,312 @@
+package csulb.cecs323.app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import csulb.cecs323.snapshot.CatalogSnapshot;
+import csulb.cecs323.snapshot.CatalogSnapshots;
+import org.eclipse.persistence.jpa.JpaHelper;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves the catalog as a JSON API over the JDK's built in HTTP server, so that many clients can use
+ * it at once.  Every request runs on a thread of a fixed pool, as large as the connection pool, with
+ * its own EntityManager (and so its own pooled connection) taken from the shared EntityManagerFactory.
+ * <pre>
+ *     POST   /publishers          GET /publishers/{name}
+ *     POST   /authors             GET /authors/{name}
+ *     POST   /books               GET /books/{isbn}
+ *     PUT    /books/{isbn}        DELETE /books/{isbn}
+ * </pre>
+ * Request and response bodies are flat JSON objects with the fields described in {@link CatalogRecords}.
+ * A book's {isbn} may be its ISBN-10 or ISBN-13, hyphenated or not; one that is neither is a 400.
+ * A write that breaks a constraint (a duplicate key, say) or loses an optimistic lock is a 409; any
+ * other database failure is a 500, which the client may retry.
+ * <p>
+ * With -Djpabooks.groupCommit=true the writes are not committed one by one, but handed to a
+ * {@link GroupCommitQueue} that commits the writes arriving together in one transaction, up to
+ * jpabooks.groupCommit.size of them (100 by default) within jpabooks.groupCommit.window milliseconds
+ * (5 by default).  Each request still gets its own result or error.
+ * <p>
+ * With -Djpabooks.snapshot=true the GET requests are answered from a {@link CatalogSnapshot} of the
+ * catalog when it holds the object, without an EntityManager; the snapshot is loaded when the service
+ * starts and kept current from the committed changes.
+ */
+public class CatalogHttpService {
+	public static final int DEFAULT_PORT = 8080;
+
+	private static final Logger LOGGER = Logger.getLogger(CatalogHttpService.class.getName());
+
+	private final EntityManagerFactory factory;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final GroupCommitQueue groupCommit;
+
+	public CatalogHttpService(EntityManagerFactory factory, int port) throws IOException {
+		this.factory = factory;
+		this.groupCommit = Boolean.getBoolean("jpabooks.groupCommit")
+				? new GroupCommitQueue(factory, Integer.getInteger("jpabooks.groupCommit.size", 100), Long.getLong("jpabooks.groupCommit.window", 5))
+				: null;
+		if (Boolean.getBoolean("jpabooks.snapshot")) loadSnapshot(factory);
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.executor = newRequestExecutor(JpaHelper.getServerSession(factory).getDefaultConnectionPool().getMaxNumberOfConnections());
+		server.setExecutor(executor);
+		server.createContext("/publishers", exchange -> handle(exchange, this::routePublishers));
+		server.createContext("/authors", exchange -> handle(exchange, this::routeAuthors));
+		server.createContext("/books", exchange -> handle(exchange, this::routeBooks));
+	}
+
+	/**
+	 * The size of the JDBC connection pool to give the EntityManagerFactory in service mode, set with the
+	 * jpabooks.pool.size system property.  Defaults to twice the number of cores.
+	 */
+	public static int configuredPoolSize() {
+		return Integer.getInteger("jpabooks.pool.size", Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * A fixed pool with a thread per pooled connection, so that a burst of requests queues for a thread
+	 * rather than starting threads that would only wait for a connection.
+	 */
+	static ExecutorService newRequestExecutor(int threads) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "catalog-request-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private static void loadSnapshot(EntityManagerFactory factory) {
+		long start = System.nanoTime();
+		CatalogSnapshot snapshot = CatalogSnapshots.enable(factory).join();
+		if (snapshot != null) {
+			System.out.printf("Loaded the catalog snapshot in %.2f s: %s%n", (System.nanoTime() - start) / 1_000_000_000.0, snapshot.format());
+		}
+	}
+
+	public void start() {
+		server.start();
+		System.out.println("Catalog service listening on port " + server.getAddress().getPort());
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+		if (groupCommit != null) groupCommit.close();
+	}
+
+	private Response routePublishers(Request request) {
+		if (request.method.equals("POST") && request.key == null) {
+			return Response.created(inTransaction(service -> CatalogRecords.fromPublisher(service.addPublisher(request.body()))));
+		}
+		if (request.method.equals("GET") && request.key != null) {
+			return Response.ok(lookup(snapshot -> snapshot.getPublisher(request.key), CatalogRecords::fromPublisher,
+					service -> CatalogRecords.fromPublisher(service.getPublisher(request.key))));
+		}
+		return Response.methodNotAllowed();
+	}
+
+	private Response routeAuthors(Request request) {
+		if (request.method.equals("POST") && request.key == null) {
+			return Response.created(inTransaction(service -> CatalogRecords.fromAuthor(service.addAuthor(request.body()))));
+		}
+		if (request.method.equals("GET") && request.key != null) {
+			return Response.ok(lookup(snapshot -> snapshot.getAuthor(request.key), CatalogRecords::fromAuthor,
+					service -> CatalogRecords.fromAuthor(service.getAuthor(request.key))));
+		}
+		return Response.methodNotAllowed();
+	}
+
+	private Response routeBooks(Request request) {
+		if (request.method.equals("POST") && request.key == null) {
+			return Response.created(inTransaction(service -> CatalogRecords.fromBook(service.addBook(request.body()))));
+		}
+		if (request.key == null) return Response.methodNotAllowed();
+
+		return switch (request.method) {
+			case "GET" -> Response.ok(lookup(snapshot -> snapshot.getBook(request.key), CatalogRecords::fromBook,
+					service -> CatalogRecords.fromBook(service.getBook(request.key))));
+			case "PUT" -> Response.ok(inTransaction(service -> CatalogRecords.fromBook(service.updateBook(request.key, request.body()))));
+			case "DELETE" -> {
+				inTransaction(service -> {
+					service.deleteBook(request.key);
+					return null;
+				});
+				yield new Response(204, null);
+			}
+			default -> Response.methodNotAllowed();
+		};
+	}
+
+	/**
+	 * Run an operation in its own EntityManager and transaction, committing if it succeeds, or in the
+	 * next group commit if group commit is on.
+	 */
+	private <T> T inTransaction(Function<CatalogService, T> operation) {
+		if (groupCommit != null) return groupCommit.execute(operation);
+
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			T result = operation.apply(new CatalogService(manager));
+			manager.getTransaction().commit();
+			return result;
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private <T> T read(Function<CatalogService, T> operation) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			return operation.apply(new CatalogService(manager));
+		} finally {
+			manager.close();
+		}
+	}
+
+	/**
+	 * Look an object up in the catalog snapshot if there is one, otherwise, or when the snapshot does not
+	 * have it, read it through an EntityManager (which also reports it missing).
+	 */
+	private <R> Map<String, Object> lookup(Function<CatalogSnapshot, R> fromSnapshot, Function<R, Map<String, Object>> toRecord,
+	                                      Function<CatalogService, Map<String, Object>> operation) {
+		CatalogSnapshot snapshot = CatalogSnapshots.current();
+		R row = snapshot == null ? null : fromSnapshot.apply(snapshot);
+		return row != null ? toRecord.apply(row) : read(operation);
+	}
+
+	private void handle(HttpExchange exchange, Function<Request, Response> router) throws IOException {
+		Response response;
+		try {
+			response = router.apply(new Request(exchange));
+		} catch (EntityNotFoundException e) {
+			response = Response.error(404, e.getMessage());
+		} catch (IllegalArgumentException e) {
+			response = Response.error(400, e.getMessage());
+		} catch (EntityExistsException | OptimisticLockException e) {
+			response = Response.error(409, e.getMessage());
+		} catch (PersistenceException e) {
+			// constraint violations (duplicate keys and the like) surface when the transaction commits
+			if (isConflict(e)) {
+				response = Response.error(409, rootMessage(e));
+			} else {
+				LOGGER.log(Level.WARNING, "Request failed: " + exchange.getRequestURI(), e);
+				response = Response.error(500, rootMessage(e));
+			}
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Request failed: " + exchange.getRequestURI(), e);
+			response = Response.error(500, e.getMessage());
+		}
+
+		try (exchange) {
+			if (response.body == null) {
+				exchange.sendResponseHeaders(response.status, -1);
+				return;
+			}
+			byte[] bytes = Json.writeObject(response.body).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(response.status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+	}
+
+	/**
+	 * Whether the request failed because of the data it sent, rather than the database: a constraint
+	 * violation (SQL state class 23) or a lost optimistic lock.  Those are not worth retrying as they are.
+	 */
+	static boolean isConflict(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof OptimisticLockException || cause instanceof org.eclipse.persistence.exceptions.OptimisticLockException) return true;
+			if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("23")) return true;
+			if (cause.getCause() == cause) break;
+		}
+		return false;
+	}
+
+	private static String rootMessage(Throwable e) {
+		while (e.getCause() != null && e.getCause() != e) e = e.getCause();
+		return e.getMessage();
+	}
+
+	/**
+	 * The parts of an HTTP request the routes need: the method, the key after the collection name (if
+	 * any), and the JSON body.
+	 */
+	private static class Request {
+		private final String method;
+		private final String key;
+		private final HttpExchange exchange;
+
+		private Request(HttpExchange exchange) {
+			this.exchange = exchange;
+			this.method = exchange.getRequestMethod().toUpperCase();
+
+			String context = exchange.getHttpContext().getPath();
+			String rest = exchange.getRequestURI().getRawPath().substring(context.length());
+			if (rest.startsWith("/")) rest = rest.substring(1);
+			this.key = rest.isEmpty() ? null : URLDecoder.decode(rest, StandardCharsets.UTF_8);
+		}
+
+		private Map<String, String> body() {
+			try (InputStream in = exchange.getRequestBody()) {
+				return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Could not read the request body.", e);
+			}
+		}
+	}
+
+	private static class Response {
+		private final int status;
+		private final Map<String, ?> body;
+
+		private Response(int status, Map<String, ?> body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		private static Response ok(Map<String, ?> body) {
+			return new Response(200, body);
+		}
+
+		private static Response created(Map<String, ?> body) {
+			return new Response(201, body);
+		}
+
+		private static Response methodNotAllowed() {
+			return error(405, "Method not allowed.");
+		}
+
+		private static Response error(int status, String message) {
+			return new Response(status, Map.of("error", message == null ? "" : message));
+		}
+	}
+}
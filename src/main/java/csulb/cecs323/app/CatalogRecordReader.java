@@ -0,0 +1,146 @@
+package csulb.cecs323.app;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the rows of a catalog file one at a time, so that an import never holds more than a single
+ * line of the input in memory.  Two formats are understood, chosen by the file extension:
+ * <ul>
+ *     <li><b>.csv</b> - the first line is a header naming the columns, fields may be quoted with "</li>
+ *     <li><b>.json / .ndjson</b> - one flat JSON object per line (newline delimited JSON)</li>
+ * </ul>
+ * Every row is handed back as a map from column name to its (possibly null) string value.
+ */
+public class CatalogRecordReader implements Iterator<Map<String, String>>, Closeable {
+	private final BufferedReader reader;
+	private final boolean csv;
+	private final Path path;
+	private List<String> header;
+	private Map<String, String> next;
+	private long lineNumber;
+
+	public CatalogRecordReader(Path path) throws IOException {
+		this.path = path;
+		this.csv = path.getFileName().toString().toLowerCase().endsWith(".csv");
+		this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		if (csv) {
+			String headerLine = readLine();
+			this.header = headerLine == null ? List.of() : splitCsv(headerLine);
+		}
+	}
+
+	/**
+	 * Finds the catalog file for the given base name (e.g. "books") in a directory, trying each of the
+	 * supported extensions in turn.
+	 * @param directory  The directory holding the catalog files.
+	 * @param baseName   The file name without its extension.
+	 * @return           The path of the file, or null if there is no such file.
+	 */
+	public static Path find(Path directory, String baseName) {
+		for (String extension : new String[] {".csv", ".ndjson", ".json"}) {
+			Path candidate = directory.resolve(baseName + extension);
+			if (Files.isRegularFile(candidate)) return candidate;
+		}
+		return null;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) next = readRecord();
+		return next != null;
+	}
+
+	@Override
+	public Map<String, String> next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		Map<String, String> result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * @return The line number of the last record read, for error messages.
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private Map<String, String> readRecord() {
+		String line;
+		// skip blank lines
+		do {
+			line = readLine();
+			if (line == null) return null;
+		} while (line.trim().isEmpty());
+
+		try {
+			return csv ? toRecord(splitCsv(line)) : Json.parseObject(line);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(path.getFileName() + " line " + lineNumber + ": " + e.getMessage(), e);
+		}
+	}
+
+	private String readLine() {
+		try {
+			String line = reader.readLine();
+			if (line != null) lineNumber++;
+			return line;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Map<String, String> toRecord(List<String> fields) {
+		Map<String, String> record = new LinkedHashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			String value = i < fields.size() ? fields.get(i) : null;
+			record.put(header.get(i).trim(), value == null || value.isEmpty() ? null : value);
+		}
+		return record;
+	}
+
+	private static List<String> splitCsv(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				}
+				else if (c == '"') quoted = false;
+				else field.append(c);
+			}
+			else if (c == '"') quoted = true;
+			else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else field.append(c);
+		}
+
+		if (quoted) throw new IllegalArgumentException("Unterminated quoted field.");
+		fields.add(field.toString());
+		return fields;
+	}
+}
@@ -0,0 +1,196 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.*;
+import csulb.cecs323.snapshot.AuthorRow;
+import csulb.cecs323.snapshot.BookRow;
+import csulb.cecs323.snapshot.PublisherRow;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Converts between the entities and flat records (column name to value), the form they take in
+ * catalog files and in the JSON of the HTTP service.  The field names are the same everywhere:
+ * <ul>
+ *     <li><b>publishers</b> - name, email, phone</li>
+ *     <li><b>authors</b> - name, type (WritingGroup, IndividualAuthor or AdHocTeam), email,
+ *         headWriter, yearFormed, members (for teams: individual author names separated by ';')</li>
+ *     <li><b>books</b> - isbn (ISBN-10 or ISBN-13, hyphenated or not; written out as the 13 digits of
+ *         the ISBN-13), title, yearPublished, author, publisher</li>
+ * </ul>
+ */
+public final class CatalogRecords {
+	private CatalogRecords() {}
+
+	public static Publishers toPublisher(Map<String, String> record) {
+		return new Publishers(required(record, "name"), required(record, "email"), required(record, "phone"));
+	}
+
+	/**
+	 * @param record   The author record.
+	 * @param members  Finds the individual author of the given name, for the members of a team.
+	 */
+	public static Authoring_Entities toAuthor(Map<String, String> record, Function<String, IndividualAuthor> members) {
+		String type = required(record, "type");
+		Authoring_Entities author;
+
+		switch (type) {
+			case "WritingGroup" -> {
+				Writing_Groups group = new Writing_Groups();
+				group.setHeadWriter(record.get("headWriter"));
+				String yearFormed = record.get("yearFormed");
+				if (yearFormed != null) group.setYearFormed(Integer.parseInt(yearFormed.trim()));
+				author = group;
+			}
+			case "IndividualAuthor" -> author = new IndividualAuthor();
+			case "AdHocTeam" -> {
+				AdHocTeam team = new AdHocTeam();
+				Set<IndividualAuthor> teamMembers = new HashSet<>();
+				String memberNames = record.get("members");
+				if (memberNames != null) {
+					for (String memberName : memberNames.split(";")) {
+						if (!memberName.isBlank()) teamMembers.add(members.apply(memberName.trim()));
+					}
+				}
+				team.setTeamMembers(teamMembers);
+				author = team;
+			}
+			default -> throw new IllegalArgumentException("Unknown authoring entity type: " + type);
+		}
+
+		author.setName(required(record, "name"));
+		author.setEmail(required(record, "email"));
+		return author;
+	}
+
+	/**
+	 * The author and publisher of the book are referred to by name, and must already exist.
+	 */
+	public static Books toBook(EntityManager manager, Map<String, String> record) {
+		return toBook(record, new CatalogReferences(manager));
+	}
+
+	/**
+	 * @param references  The author and publisher names of a chunk of records, see {@link #loadReferences}.
+	 */
+	public static Books toBook(Map<String, String> record, CatalogReferences references) {
+		Books book = new Books();
+		book.setISBN(required(record, "isbn"));
+		book.setTitle(required(record, "title"));
+		book.setYearPublished(Integer.parseInt(required(record, "yearPublished").trim()));
+		book.setAuthor(references.author(Authoring_Entities.class, required(record, "author")));
+		book.setPublisher(references.publisher(required(record, "publisher")));
+		return book;
+	}
+
+	/**
+	 * Read every publisher and authoring entity the records refer to in one go: the author and publisher
+	 * of a book, and the members of a team.
+	 */
+	public static void loadReferences(CatalogReferences references, Collection<Map<String, String>> records) {
+		Set<String> publishers = new HashSet<>();
+		Set<String> authors = new HashSet<>();
+		for (Map<String, String> record : records) {
+			if (record.get("publisher") != null) publishers.add(record.get("publisher"));
+			if (record.get("author") != null) authors.add(record.get("author"));
+			String memberNames = record.get("members");
+			if (memberNames != null) {
+				for (String memberName : memberNames.split(";")) {
+					if (!memberName.isBlank()) authors.add(memberName.trim());
+				}
+			}
+		}
+		references.load(publishers, authors);
+	}
+
+	public static Map<String, Object> fromPublisher(Publishers publisher) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("name", publisher.getName());
+		record.put("email", publisher.getEmail());
+		record.put("phone", publisher.getPhone());
+		return record;
+	}
+
+	public static Map<String, Object> fromAuthor(Authoring_Entities author) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("name", author.getName());
+		record.put("email", author.getEmail());
+
+		if (author instanceof Writing_Groups group) {
+			record.put("type", "WritingGroup");
+			record.put("headWriter", group.getHeadWriter());
+			record.put("yearFormed", group.getYearFormed());
+		}
+		else if (author instanceof AdHocTeam team) {
+			record.put("type", "AdHocTeam");
+			StringBuilder members = new StringBuilder();
+			if (team.getTeamMembers() != null) {
+				for (IndividualAuthor member : team.getTeamMembers()) {
+					if (members.length() > 0) members.append(';');
+					members.append(member.getName());
+				}
+			}
+			record.put("members", members.toString());
+		}
+		else {
+			record.put("type", "IndividualAuthor");
+		}
+		return record;
+	}
+
+	public static Map<String, Object> fromBook(Books book) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("isbn", book.getISBN());
+		record.put("title", book.getTitle());
+		record.put("yearPublished", book.getYearPublished());
+		record.put("author", book.getAuthor().getName());
+		record.put("publisher", book.getPublisher().getName());
+		return record;
+	}
+
+	public static Map<String, Object> fromPublisher(PublisherRow publisher) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("name", publisher.name());
+		record.put("email", publisher.email());
+		record.put("phone", publisher.phone());
+		return record;
+	}
+
+	public static Map<String, Object> fromAuthor(AuthorRow author) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("name", author.name());
+		record.put("email", author.email());
+		record.put("type", author.type());
+
+		switch (author.type()) {
+			case AuthorRow.WRITING_GROUP -> {
+				record.put("headWriter", author.headWriter());
+				record.put("yearFormed", author.yearFormed());
+			}
+			case AuthorRow.AD_HOC_TEAM -> record.put("members", String.join(";", author.members()));
+			default -> {}
+		}
+		return record;
+	}
+
+	public static Map<String, Object> fromBook(BookRow book) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put("isbn", book.isbn());
+		record.put("title", book.title());
+		record.put("yearPublished", book.yearPublished());
+		record.put("author", book.author());
+		record.put("publisher", book.publisher());
+		return record;
+	}
+
+	static String required(Map<String, String> record, String column) {
+		String value = record.get(column);
+		if (value == null || value.isBlank()) throw new IllegalArgumentException("Missing value for '" + column + "'.");
+		return value;
+	}
+}
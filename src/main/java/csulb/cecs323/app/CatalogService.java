@@ -0,0 +1,81 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The add, info, update and delete operations of the application, free of any user interface, so they
+ * can be driven by the HTTP service.  The service works on the EntityManager it is given and leaves
+ * the transaction to the caller.
+ */
+public class CatalogService {
+	private final EntityManager manager;
+
+	public CatalogService(EntityManager manager) {
+		this.manager = manager;
+	}
+
+	public Publishers addPublisher(Map<String, String> record) {
+		Publishers publisher = CatalogRecords.toPublisher(record);
+		manager.persist(publisher);
+		return publisher;
+	}
+
+	public Authoring_Entities addAuthor(Map<String, String> record) {
+		Authoring_Entities author = CatalogRecords.toAuthor(record, name -> CatalogKeys.authorReference(manager, IndividualAuthor.class, name));
+		manager.persist(author);
+		return author;
+	}
+
+	public Books addBook(Map<String, String> record) {
+		Books book = CatalogRecords.toBook(manager, record);
+		manager.persist(book);
+		return book;
+	}
+
+	public Publishers getPublisher(String name) {
+		Publishers publisher = CatalogKeys.findPublisher(manager, name);
+		if (publisher == null) throw new EntityNotFoundException("No publisher named " + name);
+		return publisher;
+	}
+
+	public Authoring_Entities getAuthor(String name) {
+		Authoring_Entities author = CatalogKeys.findAuthor(manager, name);
+		if (author == null) throw new EntityNotFoundException("No authoring entity named " + name);
+		return author;
+	}
+
+	/**
+	 * @param isbn  The ISBN-10 or ISBN-13 of the book, hyphenated or not.
+	 * @return      The book with its author and publisher already loaded.
+	 */
+	public Books getBook(String isbn) {
+		List<Books> books = manager.createNamedQuery("ReturnBookDetail", Books.class)
+				.setParameter("isbn", Isbn.normalize(isbn)).getResultList();
+		if (books.isEmpty()) throw new EntityNotFoundException("No book with ISBN " + isbn);
+		return books.get(0);
+	}
+
+	/**
+	 * Change the title, year, author or publisher of a book.  Fields missing from the record are left as
+	 * they are; the ISBN cannot be changed.
+	 */
+	public Books updateBook(String isbn, Map<String, String> changes) {
+		Books book = getBook(isbn);
+		if (changes.containsKey("title")) book.setTitle(CatalogRecords.required(changes, "title"));
+		if (changes.containsKey("yearPublished")) {
+			book.setYearPublished(Integer.parseInt(CatalogRecords.required(changes, "yearPublished").trim()));
+		}
+		if (changes.containsKey("author")) book.setAuthor(getAuthor(CatalogRecords.required(changes, "author")));
+		if (changes.containsKey("publisher")) book.setPublisher(getPublisher(CatalogRecords.required(changes, "publisher")));
+		return book;
+	}
+
+	public void deleteBook(String isbn) {
+		manager.remove(getBook(isbn));
+	}
+}
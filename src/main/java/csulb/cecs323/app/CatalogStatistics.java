@@ -0,0 +1,57 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.AuthorBookCount;
+import csulb.cecs323.model.PublisherBookCount;
+import csulb.cecs323.model.YearBookCount;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Counts of the catalog, computed by the database (with GROUP BY, or a counting subquery per row of a
+ * page) so that only the counts cross the wire: no book is loaded, and the works collections are never
+ * touched.  The per author, per publisher and per year counts are paged with {@link KeysetPager}, so
+ * even a catalog with millions of authors is answered one page of groups at a time.
+ */
+public class CatalogStatistics {
+	private final EntityManager manager;
+
+	public CatalogStatistics(EntityManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * The number of books of every authoring entity, in name order, including those with none.
+	 */
+	public KeysetPager<AuthorBookCount> booksPerAuthor(int pageSize) {
+		return new KeysetPager<>(manager, AuthorBookCount.class, "CountBooksByAuthorFirstPage",
+				"CountBooksByAuthorPageAfter", "CountBooksByAuthorPageBefore", AuthorBookCount::name, pageSize);
+	}
+
+	/**
+	 * The number of books of every publisher, in name order, including those with none.
+	 */
+	public KeysetPager<PublisherBookCount> booksPerPublisher(int pageSize) {
+		return new KeysetPager<>(manager, PublisherBookCount.class, "CountBooksByPublisherFirstPage",
+				"CountBooksByPublisherPageAfter", "CountBooksByPublisherPageBefore", PublisherBookCount::name, pageSize);
+	}
+
+	/**
+	 * The number of books published in each year that has any, oldest first.
+	 */
+	public KeysetPager<YearBookCount> booksPerYear(int pageSize) {
+		return new KeysetPager<>(manager, YearBookCount.class, "CountBooksByYearFirstPage",
+				"CountBooksByYearPageAfter", "CountBooksByYearPageBefore", YearBookCount::year, pageSize);
+	}
+
+	/**
+	 * @param count  How many publishers to return.
+	 * @return       The publishers with the most books, most first; ties are in name order.
+	 */
+	public List<PublisherBookCount> topPublishers(int count) {
+		if (count <= 0) throw new IllegalArgumentException("The number of publishers must be positive.");
+		return manager.createNamedQuery("TopPublishersByBookCount", PublisherBookCount.class)
+				.setMaxResults(count)
+				.getResultList();
+	}
+}
@@ -0,0 +1,188 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.persistence.QueryStatistics;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Applies the write operations of many concurrent callers together, in one transaction per batch,
+ * so that they share a single commit (and a single force of the database log) instead of paying for
+ * one each.  A batch is closed when it holds the maximum number of operations, or when the window has
+ * passed since its first operation arrived, whichever comes first.
+ * <p>
+ * Every caller still gets the result of its own operation.  If any operation of a batch fails, or the
+ * commit does, the batch is rolled back and each of its operations is run again in a transaction of its
+ * own, so only the operations that really fail report an error, with the same exception they would
+ * have thrown without group commit.
+ */
+public class GroupCommitQueue implements AutoCloseable {
+	public static final String GROUP_COMMIT = "GroupCommit";
+
+	private final EntityManagerFactory factory;
+	private final int maxBatch;
+	private final long windowNanos;
+	private final BlockingQueue<Operation<?>> queue = new LinkedBlockingQueue<>();
+	private final Thread committer;
+	private volatile boolean closed;
+
+	/**
+	 * @param maxBatch      The most operations committed together.
+	 * @param windowMillis  How long a batch waits for more operations after its first one.
+	 */
+	public GroupCommitQueue(EntityManagerFactory factory, int maxBatch, long windowMillis) {
+		if (maxBatch <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+		this.factory = factory;
+		this.maxBatch = maxBatch;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+		this.committer = new Thread(this::run, "group-commit");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 * Queue an operation for the next batch.
+	 * @return  Completed with the result of the operation once its batch has committed, or with the
+	 *          exception it failed with.
+	 */
+	public <T> CompletableFuture<T> submit(Function<CatalogService, T> operation) {
+		Operation<T> queued = new Operation<>(operation);
+		// close() takes the same lock, so nothing is queued once the committer may have stopped
+		synchronized (this) {
+			if (closed) throw new IllegalStateException("The group commit queue has been closed.");
+			queue.add(queued);
+		}
+		return queued.result;
+	}
+
+	/**
+	 * Queue an operation and wait until it has been committed.
+	 * @return The result of the operation; if it failed its exception is thrown as it is.
+	 */
+	public <T> T execute(Function<CatalogService, T> operation) {
+		try {
+			return submit(operation).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			if (e.getCause() instanceof Error cause) throw cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Stop taking operations, and wait for the ones already queued to be committed.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+		}
+		try {
+			committer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		List<Operation<?>> batch = new ArrayList<>(maxBatch);
+		while (!closed || !queue.isEmpty()) {
+			try {
+				Operation<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) continue;
+				batch.add(first);
+
+				long deadline = System.nanoTime() + windowNanos;
+				while (batch.size() < maxBatch) {
+					if (queue.drainTo(batch, maxBatch - batch.size()) > 0) continue;
+					Operation<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) break;
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				// not expected, as close() waits for the queue to drain; commit what has been taken
+			}
+
+			if (!batch.isEmpty()) {
+				long start = System.nanoTime();
+				try {
+					commit(batch);
+				} catch (Throwable e) {
+					// whatever went wrong, no caller may be left waiting, and the committer must keep going
+					for (Operation<?> operation : batch) operation.result.completeExceptionally(e);
+				}
+				QueryStatistics.getOperation(GROUP_COMMIT).record(System.nanoTime() - start, batch.size());
+				batch.clear();
+			}
+		}
+	}
+
+	private void commit(List<Operation<?>> batch) {
+		if (batch.size() > 1 && commitTogether(batch)) return;
+
+		// one failing operation must not fail the others, so find out which it is by running each alone
+		for (Operation<?> operation : batch) commitAlone(operation);
+	}
+
+	private boolean commitTogether(List<Operation<?>> batch) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			CatalogService service = new CatalogService(manager);
+			for (Operation<?> operation : batch) operation.apply(service);
+			manager.getTransaction().commit();
+		} catch (Throwable e) {
+			return false;
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+
+		for (Operation<?> operation : batch) operation.complete();
+		return true;
+	}
+
+	private void commitAlone(Operation<?> operation) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			operation.apply(new CatalogService(manager));
+			manager.getTransaction().commit();
+			operation.complete();
+		} catch (Throwable e) {
+			operation.result.completeExceptionally(e);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	/**
+	 * A queued operation, and its result until the batch it belongs to has committed.
+	 */
+	private static class Operation<T> {
+		private final Function<CatalogService, T> work;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private T value;
+
+		Operation(Function<CatalogService, T> work) {
+			this.work = work;
+		}
+
+		void apply(CatalogService service) {
+			value = work.apply(service);
+		}
+
+		void complete() {
+			result.complete(value);
+		}
+	}
+}
@@ -15,18 +15,28 @@ package csulb.cecs323.app;
 // Import all of the entity classes that we have written for this application.
 
 import csulb.cecs323.model.*;
+import csulb.cecs323.persistence.CacheStatistics;
+import csulb.cecs323.persistence.PersistenceSettings;
+import csulb.cecs323.persistence.QueryStatistics;
+import csulb.cecs323.persistence.RuntimeProfile;
+import csulb.cecs323.persistence.SurrogateKeyMigration;
+import csulb.cecs323.search.CatalogSearch;
+import csulb.cecs323.search.SearchHit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
-import javax.persistence.Persistence;
 import javax.persistence.criteria.CriteriaBuilder;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
 
 /**
  * The JPA Project implementing entity relationships with books and authors.
@@ -47,6 +57,7 @@ public class JPABooksProject {
 	 * application, without resorting to creating a global variable.
 	 */
 	private static final Logger LOGGER = Logger.getLogger(JPABooksProject.class.getName());
+	private static final int SEARCH_RESULTS = 10;
 
 	private static JPABooksProject jpa;
 
@@ -61,7 +72,59 @@ public class JPABooksProject {
 
 	public static void main(String[] args) {
 		LOGGER.setLevel(Level.OFF);
-		EntityManagerFactory factory = Persistence.createEntityManagerFactory("JPABooksProject");
+
+		// "--profile <name>" before the command picks the database to run with, see RuntimeProfile
+		if (args.length >= 2 && args[0].equalsIgnoreCase("--profile")) {
+			System.setProperty(RuntimeProfile.PROPERTY, RuntimeProfile.named(args[1]).getName());
+			args = Arrays.copyOfRange(args, 2, args.length);
+		}
+
+		// "serve [port]" runs the headless JSON HTTP service instead of the menus
+		if (args.length >= 1 && args[0].equalsIgnoreCase("serve")) {
+			runService(args);
+			return;
+		}
+
+		EntityManagerFactory factory = PersistenceSettings.createEntityManagerFactory();
+
+		// "import <directory> [chunk size] [workers]" bulk loads a catalog from files instead of starting the menus
+		if (args.length >= 2 && args[0].equalsIgnoreCase("import")) {
+			runImport(factory, args);
+			factory.close();
+			return;
+		}
+
+		// "export <file> [fetch size]" writes every book to a CSV or NDJSON file instead of starting the menus
+		if (args.length >= 2 && args[0].equalsIgnoreCase("export")) {
+			runExport(factory, args);
+			factory.close();
+			return;
+		}
+
+		// "generate <books> [seed] [workers]" fills the database with a synthetic catalog instead of starting the menus
+		if (args.length >= 2 && args[0].equalsIgnoreCase("generate")) {
+			runGenerator(factory, args);
+			factory.close();
+			return;
+		}
+
+		// "plans" reports whether the hot lookups use their indexes instead of starting the menus
+		if (args.length >= 1 && args[0].equalsIgnoreCase("plans")) {
+			runQueryPlanReport(factory);
+			factory.close();
+			return;
+		}
+
+		// "migrate-keys" converts the database to the surrogate key variant of the model (see PersistenceSettings)
+		if (args.length >= 1 && args[0].equalsIgnoreCase("migrate-keys")) {
+			runSurrogateKeyMigration(factory);
+			factory.close();
+			return;
+		}
+
+		// the search index is read from the database while the menus start
+		CatalogSearch.rebuildInBackground(factory, Runtime.getRuntime().availableProcessors());
+
 		EntityManager manager = factory.createEntityManager();
 		// Create an instance of CustomerOrders and store our new EntityManager as an instance variable.
 		jpa = new JPABooksProject(manager);
@@ -125,6 +188,82 @@ public class JPABooksProject {
 		scanner.close();
 	} // End of the main method
 
+	private static void runImport(EntityManagerFactory factory, String[] args) {
+		int chunkSize = args.length >= 3 ? Integer.parseInt(args[2]) : BulkCatalogImporter.DEFAULT_CHUNK_SIZE;
+		int workers = args.length >= 4 ? Integer.parseInt(args[3]) : 1;
+		try {
+			// the default pool has 32 connections, enough for a worker per core on most machines
+			if (workers > 1) new ParallelCatalogImporter(factory, workers, chunkSize).importDirectory(Path.of(args[1]));
+			else new BulkCatalogImporter(factory, chunkSize).importDirectory(Path.of(args[1]));
+		} catch (Exception e) {
+			System.out.println("Import failed: " + e.getMessage());
+		}
+	}
+
+	private static void runExport(EntityManagerFactory factory, String[] args) {
+		int fetchSize = args.length >= 3 ? Integer.parseInt(args[2]) : CatalogExporter.DEFAULT_FETCH_SIZE;
+		try {
+			new CatalogExporter(factory, fetchSize).export(Path.of(args[1]));
+		} catch (Exception e) {
+			System.out.println("Export failed: " + e.getMessage());
+		}
+	}
+
+	private static void runGenerator(EntityManagerFactory factory, String[] args) {
+		long seed = args.length >= 3 ? Long.parseLong(args[2]) : CatalogGenerator.DEFAULT_SEED;
+		int workers = args.length >= 4 ? Integer.parseInt(args[3]) : 1;
+		try {
+			new CatalogGenerator(factory, CatalogGenerator.Shape.configured(Long.parseLong(args[1])), seed, workers).generate();
+		} catch (Exception e) {
+			System.out.println("Generating the catalog failed: " + e.getMessage());
+		}
+	}
+
+	private static void runSurrogateKeyMigration(EntityManagerFactory factory) {
+		if (PersistenceSettings.isSurrogateKeys() || !PersistenceSettings.isPersistentSchema()) {
+			System.out.println("Run migrate-keys on the natural key model with -Djpabooks.schema=persistent.");
+			return;
+		}
+		try {
+			new SurrogateKeyMigration(factory).migrate();
+			System.out.println("Converted to surrogate keys; start with -Djpabooks.keys=surrogate from now on.");
+		} catch (Exception e) {
+			System.out.println("Surrogate key migration failed: " + e.getMessage());
+		}
+	}
+
+	private static void runQueryPlanReport(EntityManagerFactory factory) {
+		try {
+			boolean allIndexed = new QueryPlanReport(factory).run();
+			System.out.println(allIndexed ? "\nEvery lookup uses an index." : "\nSome lookups scan the whole table.");
+		} catch (Exception e) {
+			System.out.println("Query plan report failed: " + e.getMessage());
+		}
+	}
+
+	private static void runService(String[] args) {
+		int port = args.length >= 2 ? Integer.parseInt(args[1]) : CatalogHttpService.DEFAULT_PORT;
+		String poolSize = String.valueOf(CatalogHttpService.configuredPoolSize());
+
+		// every request takes its own connection, so size the pool for the concurrent requests
+		EntityManagerFactory factory = PersistenceSettings.createEntityManagerFactory(Map.of(
+				"eclipselink.connection-pool.default.initial", poolSize,
+				"eclipselink.connection-pool.default.min", poolSize,
+				"eclipselink.connection-pool.default.max", poolSize));
+
+		try {
+			CatalogHttpService service = new CatalogHttpService(factory, port);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				service.stop();
+				factory.close();
+			}));
+			service.start();
+		} catch (IOException e) {
+			System.out.println("Could not start the service: " + e.getMessage());
+			factory.close();
+		}
+	}
+
 	private static int promptForMainMenuChoice(Scanner scanner) {
 		boolean success = false;
 		int result = 0;
@@ -149,8 +288,8 @@ public class JPABooksProject {
 		System.out.println("\n******** MAIN MENU ********");
 		System.out.println("1. Add a new object");
 		System.out.println("2. List object information");
-		System.out.println("3. Update a book");
-		System.out.println("4. Delete a book");
+		System.out.println("3. Update books");
+		System.out.println("4. Delete books");
 		System.out.println("\nOr enter Q to quit.\n");
 	}
 
@@ -295,7 +434,7 @@ public class JPABooksProject {
 
 	private static boolean addBook(Scanner scanner) {
 		// Cannot add book if there are no publishers or authors
-		if (getAuthors().isEmpty() || getPublishers().isEmpty()) {
+		if (authorPager().isEmpty() || publisherPager().isEmpty()) {
 			System.out.println("Error: missing required database information to add a book.");
 			System.out.println("Please ensure at least one publisher and one author exist before attempting to add a book.\n");
 			return false;
@@ -318,7 +457,8 @@ public class JPABooksProject {
 				String isbn = promptForString(scanner, "Enter the book's ISBN, or Q to cancel: ");
 				if (isbn.trim().equalsIgnoreCase("q")) return false;
 				else if (isbn.trim().isEmpty()) throw new IllegalArgumentException("ISBN cannot be empty.");
-				else if (isbn.length() > 17) throw new IllegalArgumentException("ISBN cannot exceed 17 characters long.");
+				// stored as its ISBN-13, so the same book typed another way is caught as a duplicate
+				isbn = Isbn.normalize(isbn);
 
 				// Prompt for a publication year
 				String yearStr = promptForString(scanner, "Enter the book's publication year, or Q to cancel: ");
@@ -358,7 +498,7 @@ public class JPABooksProject {
 				if (response.trim().equalsIgnoreCase("q")) return false;
 
 				int choice = Integer.parseInt(response);
-				if (choice <= 0 || choice > 3) throw new IllegalArgumentException("Please enter a number 1-3.");
+				if (choice <= 0 || choice > 8) throw new IllegalArgumentException("Please enter a number 1-8.");
 
 				switch (choice) {
 					case 1 -> { // publisher info
@@ -379,6 +519,25 @@ public class JPABooksProject {
 						displayWritingGroupInfo(writingGroup);
 						return true;
 					}
+					case 4 -> { // cache statistics
+						displayCacheStatistics();
+						return true;
+					}
+					case 5 -> { // catalog statistics
+						return performStatisticsOperation(scanner);
+					}
+					case 6 -> { // ad hoc team rosters
+						browsePages(scanner, teamRosterPager(), "AD HOC TEAM ROSTERS", JPABooksProject::formatTeamRoster);
+						return true;
+					}
+					case 7 -> { // query statistics
+						displayQueryStatistics();
+						return true;
+					}
+					case 8 -> { // search
+						performSearch(scanner);
+						return true;
+					}
 				}
 
 			} catch (Exception e) {
@@ -392,6 +551,11 @@ public class JPABooksProject {
 		System.out.println("1. Get Publisher Info");
 		System.out.println("2. Get Book Info");
 		System.out.println("3. Get Writing Group Info");
+		System.out.println("4. Get Cache Statistics");
+		System.out.println("5. Get Catalog Statistics");
+		System.out.println("6. List Ad Hoc Team Rosters");
+		System.out.println("7. Get Query Statistics");
+		System.out.println("8. Search Books");
 	}
 
 	private static void displayPublisherInfo(Publishers publisher) {
@@ -421,42 +585,181 @@ public class JPABooksProject {
 		System.out.println();
 	}
 
-	private static boolean editPublisher(Scanner scanner, Publishers publisher) {
-		// TODO
-		return false;
+	private static void displayCacheStatistics() {
+		System.out.println("\n******** SHARED CACHE STATISTICS ********");
+		System.out.print(CacheStatistics.format());
+		System.out.println();
 	}
 
-	private static boolean editBook(Scanner scanner, Books books) {
-		// TODO
-		return false;
+	private static void performSearch(Scanner scanner) {
+		while (true) {
+			String query = promptForString(scanner, "\nSearch titles, authors and publishers (blank to return): ");
+			if (query.isBlank()) return;
+
+			long start = System.nanoTime();
+			List<SearchHit> hits = CatalogSearch.search(query, SEARCH_RESULTS);
+			double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+			System.out.printf("%n******** %d RESULTS (%.3f ms) ********%n", hits.size(), millis);
+			for (int i = 0; i < hits.size(); i++) {
+				SearchHit hit = hits.get(i);
+				System.out.println((i + 1) + ". " + hit.title() + " - " + hit.author() + ", " + hit.publisher() + " (ISBN " + hit.isbn() + ")");
+			}
+		}
 	}
 
-	private static boolean editWritingGroup(Scanner scanner, Writing_Groups group) {
-		// TODO
-		return false;
+	private static void displayQueryStatistics() {
+		System.out.println("\n******** QUERY STATISTICS ********");
+		System.out.print(QueryStatistics.format());
+		System.out.println();
 	}
 
-	private static Books promptForBookChoice(Scanner scanner) {
-		List<Books> books = getBooks();
-		if (books.isEmpty()) {
-			System.out.println("\nError: missing required database information.");
-			System.out.println("Please ensure at least one book entry exists before requesting book info.");
-			return null;
+	private static boolean performStatisticsOperation(Scanner scanner) {
+		CatalogStatistics statistics = new CatalogStatistics(jpa.entityManager);
+		while (true) {
+			try {
+
+				displayStatisticsMenu();
+
+				String response = promptForString(scanner, "Choose an option (#), or Q to cancel: ");
+				if (response.trim().equalsIgnoreCase("q")) return false;
+
+				int choice = Integer.parseInt(response);
+				if (choice <= 0 || choice > 4) throw new IllegalArgumentException("Please enter a number 1-4.");
+
+				int pageSize = KeysetPager.configuredPageSize();
+				switch (choice) {
+					case 1 -> browsePages(scanner, statistics.booksPerAuthor(pageSize), "BOOKS PER AUTHOR",
+							count -> count.name() + ": " + count.books());
+					case 2 -> browsePages(scanner, statistics.booksPerPublisher(pageSize), "BOOKS PER PUBLISHER",
+							count -> count.name() + ": " + count.books());
+					case 3 -> browsePages(scanner, statistics.booksPerYear(pageSize), "BOOKS PER YEAR",
+							count -> count.year() + ": " + count.books());
+					case 4 -> {
+						int count = Integer.parseInt(promptForString(scanner, "How many publishers? ").trim());
+						List<PublisherBookCount> top = statistics.topPublishers(count);
+						System.out.println("\n******** TOP PUBLISHERS ********");
+						for (int i = 0; i < top.size(); i++) {
+							System.out.println((i + 1) + ". " + top.get(i).name() + ": " + top.get(i).books());
+						}
+						System.out.println();
+					}
+				}
+				return true;
+
+			} catch (Exception e) {
+				System.out.println("Error: " + e.getMessage() + "; Please try again.");
+			}
+		}
+	}
+
+	private static void displayStatisticsMenu() {
+		System.out.println("\n******** CATALOG STATISTICS ********");
+		System.out.println("1. Books per Author");
+		System.out.println("2. Books per Publisher");
+		System.out.println("3. Books per Year");
+		System.out.println("4. Top Publishers by Books");
+	}
+
+	/**
+	 * Show one page of rows at a time, moving to the next or previous page until the user quits.
+	 */
+	private static <T> void browsePages(Scanner scanner, KeysetPager<T> pager, String title, Function<T, String> format) {
+		List<T> page = pager.first();
+		while (true) {
+			System.out.println("\n******** " + title + " ********");
+			if (page.isEmpty()) System.out.println("(none)");
+			for (T row : page) System.out.println(format.apply(row));
+
+			String navigation = (pager.hasNext() ? "N for the next page, " : "") + (pager.hasPrevious() ? "P for the previous page, " : "");
+			String response = promptForString(scanner, "Enter " + navigation + (navigation.isEmpty() ? "Q to finish: " : "or Q to finish: ")).trim();
+			if (response.equalsIgnoreCase("n") && pager.hasNext()) page = pager.next();
+			else if (response.equalsIgnoreCase("p") && pager.hasPrevious()) page = pager.previous();
+			else if (response.equalsIgnoreCase("q")) return;
 		}
+	}
 
+	private static String formatTeamRoster(AdHocTeam team) {
+		StringBuilder roster = new StringBuilder(team.getName()).append(":");
+		if (team.getTeamMembers() == null || team.getTeamMembers().isEmpty()) return roster.append(" (no members)").toString();
+		team.getTeamMembers().stream().map(Authoring_Entities::getName).sorted()
+				.forEach(member -> roster.append("\n    ").append(member));
+		return roster.toString();
+	}
+
+	private static boolean editPublisher(Scanner scanner, Publishers publisher) {
 		while (true) {
 			try {
 
-				displayAvailableBooks(books);
+				System.out.println("\n******** EDITING PUBLISHER " + publisher.getName() + " ********");
 
-				String response = promptForString(scanner, "Choose a book (#), or Q to cancel: ");
-				if (response.trim().equalsIgnoreCase("q")) return null;
+				String email = promptForString(scanner, "Enter the new email (blank to keep \"" + publisher.getEmail() + "\"), or Q to cancel: ");
+				if (email.trim().equalsIgnoreCase("q")) return false;
+				else if (email.length() > 80) throw new IllegalArgumentException("Email cannot exceed 80 characters long.");
 
-				int choice = Integer.parseInt(response);
-				if (choice > books.size() || choice <= 0) throw new IllegalArgumentException("Invalid selection. Please enter a number 1-" + books.size());
+				String phone = promptForString(scanner, "Enter the new phone (blank to keep \"" + publisher.getPhone() + "\"), or Q to cancel: ");
+				if (phone.trim().equalsIgnoreCase("q")) return false;
+				else if (phone.length() > 24) throw new IllegalArgumentException("Phone cannot exceed 24 characters long.");
 
-				// if the choice is valid, return that publisher
-				return books.get(choice - 1);
+				if (!email.trim().isEmpty()) publisher.setEmail(email);
+				if (!phone.trim().isEmpty()) publisher.setPhone(phone);
+
+				return true;
+
+			} catch (Exception e) {
+				System.out.println("Error: " + e.getMessage() + "; Please try again.");
+			}
+		}
+	}
+
+	private static boolean editBook(Scanner scanner, Books book) {
+		while (true) {
+			try {
+
+				System.out.println("\n******** EDITING BOOK ********");
+
+				String title = promptForString(scanner, "Enter the new title (blank to keep \"" + book.getTitle() + "\"), or Q to cancel: ");
+				if (title.trim().equalsIgnoreCase("q")) return false;
+				else if (title.length() > 80) throw new IllegalArgumentException("Title cannot exceed 80 characters long.");
+
+				String yearStr = promptForString(scanner, "Enter the new publication year (blank to keep " + book.getYearPublished() + "), or Q to cancel: ");
+				if (yearStr.trim().equalsIgnoreCase("q")) return false;
+				int year = yearStr.trim().isEmpty() ? book.getYearPublished() : Integer.parseInt(yearStr.trim());
+
+				if (!title.trim().isEmpty()) book.setTitle(title);
+				book.setYearPublished(year);
+
+				return true;
+
+			} catch (Exception e) {
+				System.out.println("Error: " + e.getMessage() + "; Please try again.");
+			}
+		}
+	}
+
+	private static boolean editWritingGroup(Scanner scanner, Writing_Groups group) {
+		while (true) {
+			try {
+
+				System.out.println("\n******** EDITING WRITING GROUP " + group.getName() + " ********");
+
+				String email = promptForString(scanner, "Enter the new email (blank to keep \"" + group.getEmail() + "\"), or Q to cancel: ");
+				if (email.trim().equalsIgnoreCase("q")) return false;
+				else if (email.length() > 30) throw new IllegalArgumentException("Email cannot exceed 30 characters long.");
+
+				String headWriter = promptForString(scanner, "Enter the new head writer (blank to keep \"" + group.getHeadWriter() + "\"), or Q to cancel: ");
+				if (headWriter.trim().equalsIgnoreCase("q")) return false;
+				else if (headWriter.length() > 80) throw new IllegalArgumentException("Head Writer name cannot exceed 80 characters long.");
+
+				String yearStr = promptForString(scanner, "Enter the new year formed (blank to keep " + group.getYearFormed() + "), or Q to cancel: ");
+				if (yearStr.trim().equalsIgnoreCase("q")) return false;
+				int year = yearStr.trim().isEmpty() ? group.getYearFormed() : Integer.parseInt(yearStr.trim());
+
+				if (!email.trim().isEmpty()) group.setEmail(email);
+				if (!headWriter.trim().isEmpty()) group.setHeadWriter(headWriter);
+				group.setYearFormed(year);
+
+				return true;
 
 			} catch (Exception e) {
 				System.out.println("Error: " + e.getMessage() + "; Please try again.");
@@ -464,17 +767,22 @@ public class JPABooksProject {
 		}
 	}
 
-	private static void displayAvailableBooks(List<Books> books) {
+	private static Books promptForBookChoice(Scanner scanner) {
+		BookSummary book = promptForPagedChoice(scanner, bookPager(), "book", "Choose a book (#)", JPABooksProject::displayAvailableBooks);
+		return book == null ? null : jpa.getBookDetail(book.isbn());
+	}
+
+	private static void displayAvailableBooks(List<BookSummary> books) {
 		System.out.println("\n******** AVAILABLE BOOKS ********");
 		// print all options
 		for (int i = 0; i < books.size(); i++) {
-			Books book = books.get(i);
+			BookSummary book = books.get(i);
 
 			StringBuilder stringBuilder = new StringBuilder();
 			stringBuilder.append(i + 1).append(". ");
-			stringBuilder.append("Title: ").append(book.getTitle());
+			stringBuilder.append("Title: ").append(book.title());
 			while (stringBuilder.length() < 30) stringBuilder.append(' ');
-			stringBuilder.append("ISBN: ").append(book.getISBN());
+			stringBuilder.append("ISBN: ").append(book.isbn());
 
 			System.out.println(stringBuilder);
 		}
@@ -523,94 +831,228 @@ public class JPABooksProject {
 	}
 
 	private static boolean performUpdateOperation(Scanner scanner) {
-		// TODO
-		return false;
-	}
+		while (true) {
+			try {
 
-	private static boolean performDeleteOperation(Scanner scanner) {
-		// TODO
-		return false;
-	}
+				displayUpdateMenu();
 
-	private static String promptForString(Scanner scanner, String prompt) {
-		System.out.print(prompt);
-		return scanner.nextLine();
-	}
+				String response = promptForString(scanner, "Choose an option (#), or Q to cancel: ");
+				if (response.trim().equalsIgnoreCase("q")) return false;
 
-	private static Publishers promptForPublisherChoice(Scanner scanner) {
-		List<Publishers> publishers = getPublishers();
-		if (publishers.isEmpty()) {
-			System.out.println("\nError: missing required database information.");
-			System.out.println("Please ensure at least one publisher entry exists before requesting publisher info.");
-			return null;
+				int choice = Integer.parseInt(response);
+				if (choice <= 0 || choice > 4) throw new IllegalArgumentException("Please enter a number 1-4.");
+
+				switch (choice) {
+					case 1 -> { // a single book
+						Books book = promptForBookChoice(scanner);
+						if (book == null) return false;
+						return editBook(scanner, book);
+					}
+					case 2 -> { // every book of a publisher
+						System.out.println("\nChoose the publisher to move the books from.");
+						Publishers from = promptForPublisherChoice(scanner);
+						if (from == null) return false;
+						System.out.println("\nChoose the publisher to move the books to.");
+						Publishers to = promptForPublisherChoice(scanner);
+						if (to == null) return false;
+
+						int moved = new BulkBookOperations(jpa.entityManager).reassignPublisher(from.getName(), to.getName());
+						System.out.println(moved + " book(s) moved to " + to.getName() + ".");
+						return true;
+					}
+					case 3 -> { // a publisher's contact details
+						Publishers publisher = promptForPublisherChoice(scanner);
+						if (publisher == null) return false;
+						return editPublisher(scanner, publisher);
+					}
+					case 4 -> { // a writing group
+						Writing_Groups group = promptForWritingGroupChoice(scanner);
+						if (group == null) return false;
+						return editWritingGroup(scanner, group);
+					}
+				}
+
+			} catch (Exception e) {
+				System.out.println("Error: " + e.getMessage() + "; Please try again.");
+			}
 		}
+	}
 
-		while (true) { // loop until a return statement occurs
+	private static void displayUpdateMenu() {
+		System.out.println("\n******** UPDATE MENU ********");
+		System.out.println("1. Edit a book");
+		System.out.println("2. Move all books from one publisher to another");
+		System.out.println("3. Edit a publisher");
+		System.out.println("4. Edit a writing group");
+	}
+
+	private static boolean performDeleteOperation(Scanner scanner) {
+		while (true) {
 			try {
-				displayAvailablePublishers(publishers);
 
-				String response = promptForString(scanner, "Choose a publisher (#), or Q to cancel: ");
-				if (response.trim().equalsIgnoreCase("q")) return null;
+				displayDeleteMenu();
+
+				String response = promptForString(scanner, "Choose an option (#), or Q to cancel: ");
+				if (response.trim().equalsIgnoreCase("q")) return false;
 
 				int choice = Integer.parseInt(response);
-				if (choice > publishers.size() || choice <= 0) throw new IllegalArgumentException("Invalid selection. Please enter a number 1-" + publishers.size());
+				if (choice <= 0 || choice > 4) throw new IllegalArgumentException("Please enter a number 1-4.");
+
+				BulkBookOperations bulk = new BulkBookOperations(jpa.entityManager);
+				int deleted;
+
+				switch (choice) {
+					case 1 -> { // a single book
+						Books book = promptForBookChoice(scanner);
+						if (book == null) return false;
+						jpa.entityManager.remove(book);
+						deleted = 1;
+					}
+					case 2 -> { // every book of a publisher
+						Publishers publisher = promptForPublisherChoice(scanner);
+						if (publisher == null) return false;
+						deleted = bulk.deleteBooksByPublisher(publisher.getName());
+					}
+					case 3 -> { // every book of an author
+						Authoring_Entities author = promptForAuthorChoice(scanner);
+						if (author == null) return false;
+						deleted = bulk.deleteBooksByAuthor(author.getName());
+					}
+					default -> { // every book published in a range of years
+						String firstYear = promptForString(scanner, "Enter the first publication year to delete, or Q to cancel: ");
+						if (firstYear.trim().equalsIgnoreCase("q")) return false;
+						String lastYear = promptForString(scanner, "Enter the last publication year to delete, or Q to cancel: ");
+						if (lastYear.trim().equalsIgnoreCase("q")) return false;
+						deleted = bulk.deleteBooksByYearRange(Integer.parseInt(firstYear.trim()), Integer.parseInt(lastYear.trim()));
+					}
+				}
+
+				System.out.println(deleted + " book(s) deleted.");
+				return true;
 
-				// if the choice is valid, return that publisher
-				return publishers.get(choice - 1);
 			} catch (Exception e) {
 				System.out.println("Error: " + e.getMessage() + "; Please try again.");
 			}
 		}
 	}
 
-	private static void displayAvailablePublishers(List<Publishers> publishers) {
+	private static void displayDeleteMenu() {
+		System.out.println("\n******** DELETE MENU ********");
+		System.out.println("1. Delete a book");
+		System.out.println("2. Delete all books of a publisher");
+		System.out.println("3. Delete all books of an author");
+		System.out.println("4. Delete all books published in a range of years");
+	}
+
+	private static String promptForString(Scanner scanner, String prompt) {
+		System.out.print(prompt);
+		return scanner.nextLine();
+	}
+
+	private static Publishers promptForPublisherChoice(Scanner scanner) {
+		PublisherSummary publisher = promptForPagedChoice(scanner, publisherPager(), "publisher", "Choose a publisher (#)", JPABooksProject::displayAvailablePublishers);
+		return publisher == null ? null : CatalogKeys.findPublisher(jpa.entityManager, publisher.name());
+	}
+
+	private static void displayAvailablePublishers(List<PublisherSummary> publishers) {
 		System.out.println("\n******** AVAILABLE PUBLISHERS ********");
 		// print all options
 		for (int i = 0; i < publishers.size(); i++) {
-			Publishers publisher = publishers.get(i);
+			PublisherSummary publisher = publishers.get(i);
 
 			String stringBuilder = (i + 1) + ". " +
-					"Name: " + publisher.getName();
+					"Name: " + publisher.name();
 
 			System.out.println(stringBuilder);
 		}
 	}
 
 	private static Authoring_Entities promptForAuthorChoice(Scanner scanner) {
-		List<Authoring_Entities> authors = getAuthors();
-		if (authors.isEmpty()) {
+		AuthorSummary author = promptForPagedChoice(scanner, authorPager(), "author", "Choose an author (#)", JPABooksProject::displayAvailableAuthors);
+		return author == null ? null : CatalogKeys.findAuthor(jpa.entityManager, author.name());
+	}
+
+	/**
+	 * Show one page of rows at a time and let the user pick one of them, moving to the next or
+	 * previous page on request.
+	 * @param scanner  The scanner to read the user's responses from.
+	 * @param pager    The pager over the rows to choose from.
+	 * @param noun     What the rows are, for the error message when there are none.
+	 * @param prompt   The prompt asking for a choice, e.g. "Choose a book (#)".
+	 * @param display  Prints a page of rows, numbered from 1.
+	 * @return         The chosen row, or null if the user cancelled or there are no rows.
+	 */
+	private static <T> T promptForPagedChoice(Scanner scanner, KeysetPager<T> pager, String noun, String prompt,
+	                                          Consumer<List<T>> display) {
+		List<T> page = pager.first();
+		if (page.isEmpty()) {
 			System.out.println("\nError: missing required database information.");
-			System.out.println("Please ensure at least one author entry exists before requesting author info.");
+			System.out.println("Please ensure at least one " + noun + " entry exists before requesting " + noun + " info.");
 			return null;
 		}
 
-		while (true) {
+		while (true) { // loop until a return statement occurs
 			try {
-				displayAvailableAuthors(authors);
-
-				String response = promptForString(scanner, "Choose an author (#), or Q to cancel: ");
-				if (response.trim().equalsIgnoreCase("q")) return null;
+				display.accept(page);
+
+				String navigation = (pager.hasNext() ? ", N for the next page" : "") + (pager.hasPrevious() ? ", P for the previous page" : "");
+				String response = promptForString(scanner, prompt + navigation + ", or Q to cancel: ").trim();
+				if (response.equalsIgnoreCase("q")) return null;
+				if (response.equalsIgnoreCase("n") && pager.hasNext()) {
+					page = pager.next();
+					continue;
+				}
+				if (response.equalsIgnoreCase("p") && pager.hasPrevious()) {
+					page = pager.previous();
+					continue;
+				}
 
 				int choice = Integer.parseInt(response);
-				if (choice > authors.size() || choice <= 0) throw new IllegalArgumentException("Invalid selection. Please enter a number 1-" + authors.size());
+				if (choice > page.size() || choice <= 0) throw new IllegalArgumentException("Invalid selection. Please enter a number 1-" + page.size());
 
-				// if the choice is valid, return that publisher
-				return authors.get(choice);
+				// if the choice is valid, return that row
+				return page.get(choice - 1);
 			} catch (Exception e) {
 				System.out.println("Error: " + e.getMessage() + "; Please try again.");
 			}
 		}
+	}
 
+	private static KeysetPager<BookSummary> bookPager() {
+		return new KeysetPager<>(jpa.entityManager, BookSummary.class, "ReturnBookSummariesFirstPage",
+				"ReturnBookSummariesPageAfter", "ReturnBookSummariesPageBefore",
+				BookSummary::isbn, KeysetPager.configuredPageSize());
+	}
+
+	/**
+	 * Pages of teams whose members are all read with one statement per page.
+	 */
+	private static KeysetPager<AdHocTeam> teamRosterPager() {
+		return new KeysetPager<>(jpa.entityManager, AdHocTeam.class, "ReturnAdHocTeamRosterFirstPage",
+				"ReturnAdHocTeamRosterPageAfter", "ReturnAdHocTeamRosterPageBefore",
+				AdHocTeam::getName, KeysetPager.configuredPageSize());
 	}
 
-	private static void displayAvailableAuthors(List<Authoring_Entities> authors) {
+	private static KeysetPager<PublisherSummary> publisherPager() {
+		return new KeysetPager<>(jpa.entityManager, PublisherSummary.class, "ReturnPublisherSummariesFirstPage",
+				"ReturnPublisherSummariesPageAfter", "ReturnPublisherSummariesPageBefore",
+				PublisherSummary::name, KeysetPager.configuredPageSize());
+	}
+
+	private static KeysetPager<AuthorSummary> authorPager() {
+		return new KeysetPager<>(jpa.entityManager, AuthorSummary.class, "ReturnAuthorSummariesFirstPage",
+				"ReturnAuthorSummariesPageAfter", "ReturnAuthorSummariesPageBefore",
+				AuthorSummary::name, KeysetPager.configuredPageSize());
+	}
+
+	private static void displayAvailableAuthors(List<AuthorSummary> authors) {
 		System.out.println("\n******** AVAILABLE AUTHORS ********");
 		// print all options
 		for (int i = 0; i < authors.size(); i++) {
-			Authoring_Entities author = authors.get(i);
+			AuthorSummary author = authors.get(i);
 
 			String stringBuilder = (i + 1) + ". " +
-					"Name: " + author.getName();
+					"Name: " + author.name();
 
 			System.out.println(stringBuilder);
 		}
@@ -625,33 +1067,15 @@ public class JPABooksProject {
 	}
 
 	public static List<Writing_Groups> getWritingGroups() {
-		List<Authoring_Entities> allAuthors = getAuthors();
-		Stream<Authoring_Entities> filtered = allAuthors.stream().filter(author -> author instanceof Writing_Groups);
-		List<Writing_Groups> result = new ArrayList<>();
-		for (Authoring_Entities author : filtered.toList()) {
-			result.add((Writing_Groups) author);
-		}
-		return result;
+		return jpa.entityManager.createNamedQuery("ReturnAllWritingGroups", Writing_Groups.class).getResultList();
 	}
 
 	public static List<IndividualAuthor> getIndividualAuthors() {
-		List<Authoring_Entities> allAuthors = getAuthors();
-		Stream<Authoring_Entities> filtered = allAuthors.stream().filter(author -> author instanceof IndividualAuthor);
-		List<IndividualAuthor> result = new ArrayList<>();
-		for (Authoring_Entities author : filtered.toList()) {
-			result.add((IndividualAuthor) author);
-		}
-		return result;
+		return jpa.entityManager.createNamedQuery("ReturnAllIndividualAuthors", IndividualAuthor.class).getResultList();
 	}
 
 	public static List<AdHocTeam> getAdHocTeams() {
-		List<Authoring_Entities> allAuthors = getAuthors();
-		Stream<Authoring_Entities> filtered = allAuthors.stream().filter(author -> author instanceof AdHocTeam);
-		List<AdHocTeam> result = new ArrayList<>();
-		for (Authoring_Entities author : filtered.toList()) {
-			result.add((AdHocTeam) author);
-		}
-		return result;
+		return jpa.entityManager.createNamedQuery("ReturnAllAdHocTeams", AdHocTeam.class).getResultList();
 	}
 
 	public static List<Books> getBooks() {
@@ -697,4 +1121,16 @@ public class JPABooksProject {
 			return publishers.get(0);
 		}
 	}// End of the getStyle method
+
+	/**
+	 * Look up a single book for its detail screen.  The author and publisher are loaded in the same
+	 * round trip, using the ReturnBookDetail fetch join.
+	 * @param isbn       The ISBN of the book that you are looking for, ISBN-10 or ISBN-13, hyphenated or not.
+	 * @return           The book with that ISBN, or null if there is none.
+	 */
+	public Books getBookDetail(String isbn) {
+		List<Books> books = this.entityManager.createNamedQuery("ReturnBookDetail", Books.class)
+				.setParameter("isbn", Isbn.normalize(isbn)).getResultList();
+		return books.isEmpty() ? null : books.get(0);
+	}
 } // End of CustomerOrders class
@@ -0,0 +1,154 @@
+package csulb.cecs323.app;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON for this application: reading and writing flat objects whose values are strings,
+ * numbers, booleans or null.  Nested objects and arrays are not supported, since none of our records
+ * need them, and this keeps us from pulling in a JSON library.
+ */
+public final class Json {
+	private Json() {}
+
+	/**
+	 * Parse a single flat JSON object.  Numbers and booleans are returned in their textual form.
+	 * @param text   The JSON text, e.g. {"name": "Publisher A", "year": 2010}
+	 * @return       The members of the object, in the order they appeared.
+	 */
+	public static Map<String, String> parseObject(String text) {
+		Map<String, String> result = new LinkedHashMap<>();
+		int[] pos = {skipWhitespace(text, 0)};
+
+		expect(text, pos, '{');
+		if (peek(text, pos) == '}') {
+			pos[0]++;
+			return result;
+		}
+
+		while (true) {
+			pos[0] = skipWhitespace(text, pos[0]);
+			String key = readString(text, pos);
+			expect(text, pos, ':');
+			result.put(key, readValue(text, pos));
+
+			char c = peek(text, pos);
+			pos[0]++;
+			if (c == '}') return result;
+			if (c != ',') throw new IllegalArgumentException("Expected ',' or '}' at position " + (pos[0] - 1));
+		}
+	}
+
+	/**
+	 * Append a string to the builder as a quoted JSON string, escaping as required.
+	 * @param builder  Where the output goes.
+	 * @param value    The value to write; null is written as the JSON literal null.
+	 */
+	public static void appendString(StringBuilder builder, String value) {
+		if (value == null) {
+			builder.append("null");
+			return;
+		}
+
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> builder.append("\\\"");
+				case '\\' -> builder.append("\\\\");
+				case '\n' -> builder.append("\\n");
+				case '\r' -> builder.append("\\r");
+				case '\t' -> builder.append("\\t");
+				default -> {
+					if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+					else builder.append(c);
+				}
+			}
+		}
+		builder.append('"');
+	}
+
+	/**
+	 * Write a flat object.  Values that are Numbers or Booleans are written bare, everything else as a string.
+	 * @param members  The members of the object, in the order they should be written.
+	 * @return         The JSON text.
+	 */
+	public static String writeObject(Map<String, ?> members) {
+		StringBuilder builder = new StringBuilder("{");
+		boolean first = true;
+		for (Map.Entry<String, ?> member : members.entrySet()) {
+			if (!first) builder.append(',');
+			first = false;
+			appendString(builder, member.getKey());
+			builder.append(':');
+			Object value = member.getValue();
+			if (value instanceof Number || value instanceof Boolean) builder.append(value);
+			else appendString(builder, value == null ? null : value.toString());
+		}
+		return builder.append('}').toString();
+	}
+
+	private static String readValue(String text, int[] pos) {
+		pos[0] = skipWhitespace(text, pos[0]);
+		if (peek(text, pos) == '"') return readString(text, pos);
+
+		int start = pos[0];
+		while (pos[0] < text.length() && ",} \t\r\n".indexOf(text.charAt(pos[0])) < 0) pos[0]++;
+		String literal = text.substring(start, pos[0]);
+		if (literal.isEmpty()) throw new IllegalArgumentException("Missing value at position " + start);
+		if (literal.equals("null")) return null;
+		if (literal.startsWith("{") || literal.startsWith("[")) throw new IllegalArgumentException("Nested values are not supported.");
+		return literal;
+	}
+
+	private static String readString(String text, int[] pos) {
+		expect(text, pos, '"');
+		StringBuilder builder = new StringBuilder();
+
+		while (pos[0] < text.length()) {
+			char c = text.charAt(pos[0]++);
+			if (c == '"') return builder.toString();
+			if (c != '\\') {
+				builder.append(c);
+				continue;
+			}
+
+			if (pos[0] >= text.length()) break;
+			char escaped = text.charAt(pos[0]++);
+			switch (escaped) {
+				case 'n' -> builder.append('\n');
+				case 'r' -> builder.append('\r');
+				case 't' -> builder.append('\t');
+				case 'b' -> builder.append('\b');
+				case 'f' -> builder.append('\f');
+				case 'u' -> {
+					if (pos[0] + 4 > text.length()) throw new IllegalArgumentException("Bad unicode escape.");
+					builder.append((char) Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16));
+					pos[0] += 4;
+				}
+				default -> builder.append(escaped);
+			}
+		}
+
+		throw new IllegalArgumentException("Unterminated string.");
+	}
+
+	private static void expect(String text, int[] pos, char expected) {
+		pos[0] = skipWhitespace(text, pos[0]);
+		if (pos[0] >= text.length() || text.charAt(pos[0]) != expected) {
+			throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos[0]);
+		}
+		pos[0]++;
+	}
+
+	private static char peek(String text, int[] pos) {
+		pos[0] = skipWhitespace(text, pos[0]);
+		if (pos[0] >= text.length()) throw new IllegalArgumentException("Unexpected end of input.");
+		return text.charAt(pos[0]);
+	}
+
+	private static int skipWhitespace(String text, int pos) {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+		return pos;
+	}
+}
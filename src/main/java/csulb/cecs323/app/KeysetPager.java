@@ -0,0 +1,146 @@
+package csulb.cecs323.app;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Walks through a table one page at a time using keyset pagination: rather than an OFFSET, each page
+ * asks for the rows whose primary key comes after the last key of the current page (or before the
+ * first key, going backwards).  With an index on the key, fetching any page costs the same no matter
+ * how deep into the table it is, and only one page of rows is ever held in memory.
+ * <p>
+ * The pager is driven by three named queries: one that returns every row in ascending order, for the
+ * first page, and two taking a single <code>:key</code> parameter, one that returns the rows after the
+ * key in ascending order and one that returns the rows before it in descending order.  The first page
+ * has no key to compare with, so no key value has to be made up that sorts before every row.
+ * @param <T>  The type of row being paged over.
+ */
+public class KeysetPager<T> {
+	public static final int DEFAULT_PAGE_SIZE = 10;
+
+	private final EntityManager manager;
+	private final Class<T> type;
+	private final String firstQuery;
+	private final String afterQuery;
+	private final String beforeQuery;
+	private final Function<T, ?> keyOf;
+	private final int pageSize;
+
+	private List<T> page = List.of();
+	private boolean hasNext;
+	private boolean hasPrevious;
+
+	/**
+	 * @param manager      The EntityManager to run the queries with.
+	 * @param type         The result type of the named queries.
+	 * @param firstQuery   Named query returning every row, ascending.
+	 * @param afterQuery   Named query returning the rows with a key greater than :key, ascending.
+	 * @param beforeQuery  Named query returning the rows with a key less than :key, descending.
+	 * @param keyOf        Extracts the key from a row.
+	 * @param pageSize     The number of rows on each page.
+	 */
+	public KeysetPager(EntityManager manager, Class<T> type, String firstQuery, String afterQuery, String beforeQuery,
+	                   Function<T, ?> keyOf, int pageSize) {
+		if (pageSize <= 0) throw new IllegalArgumentException("Page size must be positive.");
+		this.manager = manager;
+		this.type = type;
+		this.firstQuery = firstQuery;
+		this.afterQuery = afterQuery;
+		this.beforeQuery = beforeQuery;
+		this.keyOf = keyOf;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @return The page size set with the jpabooks.pageSize system property, or the default.
+	 */
+	public static int configuredPageSize() {
+		return Integer.getInteger("jpabooks.pageSize", DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * @return True if the table has no rows at all.  Only a single row is read to find out.
+	 */
+	public boolean isEmpty() {
+		return fetchFirst(1).isEmpty();
+	}
+
+	public List<T> first() {
+		List<T> rows = fetchFirst(pageSize + 1);
+		hasNext = rows.size() > pageSize;
+		hasPrevious = false;
+		page = trim(rows);
+		return page;
+	}
+
+	/**
+	 * Move to the following page.  If there is none, the current page is returned unchanged.
+	 */
+	public List<T> next() {
+		if (page.isEmpty()) return first();
+		if (!hasNext) return page;
+
+		List<T> rows = fetch(afterQuery, keyOf.apply(page.get(page.size() - 1)), pageSize + 1);
+		if (rows.isEmpty()) {
+			hasNext = false;
+			return page;
+		}
+		hasNext = rows.size() > pageSize;
+		hasPrevious = true;
+		page = trim(rows);
+		return page;
+	}
+
+	/**
+	 * Move to the preceding page.  If there is none, the current page is returned unchanged.
+	 */
+	public List<T> previous() {
+		if (page.isEmpty()) return first();
+		if (!hasPrevious) return page;
+
+		List<T> rows = fetch(beforeQuery, keyOf.apply(page.get(0)), pageSize + 1);
+		if (rows.isEmpty()) {
+			hasPrevious = false;
+			return page;
+		}
+		hasPrevious = rows.size() > pageSize;
+		hasNext = true;
+		// the rows came back in descending order
+		List<T> reversed = new ArrayList<>(trim(rows));
+		Collections.reverse(reversed);
+		page = reversed;
+		return page;
+	}
+
+	public List<T> getPage() {
+		return page;
+	}
+
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	public boolean hasPrevious() {
+		return hasPrevious;
+	}
+
+	private List<T> fetchFirst(int limit) {
+		return manager.createNamedQuery(firstQuery, type)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	private List<T> fetch(String queryName, Object key, int limit) {
+		return manager.createNamedQuery(queryName, type)
+				.setParameter("key", key)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
+	private List<T> trim(List<T> rows) {
+		return rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+	}
+}
@@ -0,0 +1,216 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.CatalogReferences;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a catalog directory like {@link BulkCatalogImporter}, but writes the books from several worker
+ * threads at once, each committing its partitions through its own EntityManager and connection, so a
+ * large load is not held up by one transaction waiting on the database at a time.
+ * <p>
+ * Publishers and authors are shared by many books (and authors by the teams they belong to), so they
+ * are imported first, in order, and committed before any book partition starts; the partitions only
+ * ever refer to them.  The books are then routed to partitions by the hash of their publisher, so the
+ * books of one publisher are written together.  A partition that fails with a lock timeout, deadlock or
+ * lost connection is rolled back as a whole and run again, up to {@value #MAX_ATTEMPTS} times; one that
+ * fails for good does not stop the others, and is reported at the end with the lines it held.
+ * <p>
+ * The file is streamed, but whole partitions are held in memory: up to two per worker that have been
+ * handed over (running or queued), and one per worker still being filled by the reader.  So at most
+ * workers &times; 3 &times; partitionSize book records are held at a time.
+ */
+public class ParallelCatalogImporter {
+	public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+	private static final int MAX_ATTEMPTS = 3;
+	private static final long RETRY_DELAY_MILLIS = 100;
+
+	private final EntityManagerFactory factory;
+	private final int workers;
+	private final int partitionSize;
+
+	/**
+	 * @param workers        The number of partitions written at once.  The connection pool must allow at
+	 *                       least this many connections.
+	 * @param partitionSize  The number of books written in each transaction.
+	 */
+	public ParallelCatalogImporter(EntityManagerFactory factory, int workers, int partitionSize) {
+		if (workers <= 0) throw new IllegalArgumentException("Workers must be positive.");
+		if (partitionSize <= 0) throw new IllegalArgumentException("Partition size must be positive.");
+		this.factory = factory;
+		this.workers = workers;
+		this.partitionSize = partitionSize;
+	}
+
+	/**
+	 * Import every catalog file found in the directory, publishers and authors before the books that
+	 * refer to them.
+	 * @param directory  The directory holding the catalog files.
+	 * @return           The total number of rows imported.
+	 */
+	public long importDirectory(Path directory) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		long total = new BulkCatalogImporter(factory, partitionSize).importPublishersAndAuthors(directory);
+
+		Path books = CatalogRecordReader.find(directory, "books");
+		if (books != null) total += importBooks(books);
+
+		BulkCatalogImporter.report("all files", total, System.nanoTime() - start);
+		return total;
+	}
+
+	/**
+	 * Stream a books file into the database, handing full partitions to the workers as they fill up.
+	 * Reading waits while two partitions per worker are waiting or running, so with the partitions
+	 * being filled at most three per worker are held in memory at a time.
+	 * @return The number of books imported.
+	 */
+	public long importBooks(Path file) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		AtomicInteger threads = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "catalog-import-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		Semaphore pending = new Semaphore(workers * 2);
+		List<Future<Integer>> results = new ArrayList<>();
+
+		try (CatalogRecordReader reader = new CatalogRecordReader(file)) {
+			Partition[] open = new Partition[workers];
+			while (reader.hasNext()) {
+				Map<String, String> record = reader.next();
+				String publisher = record.get("publisher");
+				int bucket = Math.floorMod(publisher == null ? 0 : publisher.hashCode(), workers);
+
+				if (open[bucket] == null) open[bucket] = new Partition(file, partitionSize);
+				open[bucket].add(record, reader.getLineNumber());
+				if (open[bucket].size() == partitionSize) {
+					results.add(submit(pool, pending, open[bucket]));
+					open[bucket] = null;
+				}
+			}
+			for (Partition partition : open) {
+				if (partition != null) results.add(submit(pool, pending, partition));
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		long count = 0;
+		List<String> failures = new ArrayList<>();
+		for (Future<Integer> result : results) {
+			try {
+				count += result.get();
+			} catch (ExecutionException e) {
+				failures.add(e.getCause().getMessage());
+			}
+		}
+
+		BulkCatalogImporter.report(file.getFileName().toString(), count, System.nanoTime() - start);
+		if (!failures.isEmpty()) {
+			throw new IllegalStateException(failures.size() + " of " + results.size() + " partitions failed; first: " + failures.get(0));
+		}
+		return count;
+	}
+
+	private Future<Integer> submit(ExecutorService pool, Semaphore pending, Partition partition) throws InterruptedException {
+		// wait for a worker to catch up rather than reading the whole file into memory
+		pending.acquire();
+		return pool.submit(() -> {
+			try {
+				return importPartition(partition);
+			} finally {
+				pending.release();
+			}
+		});
+	}
+
+	private int importPartition(Partition partition) throws InterruptedException {
+		for (int attempt = 1; ; attempt++) {
+			EntityManager manager = factory.createEntityManager();
+			try {
+				manager.getTransaction().begin();
+				CatalogReferences references = new CatalogReferences(manager);
+				CatalogRecords.loadReferences(references, partition.records);
+				for (int i = 0; i < partition.size(); i++) {
+					try {
+						manager.persist(CatalogRecords.toBook(partition.records.get(i), references));
+					} catch (RuntimeException e) {
+						throw new IllegalArgumentException(partition.describe(i) + ": " + e.getMessage(), e);
+					}
+				}
+				manager.getTransaction().commit();
+				return partition.size();
+			} catch (PersistenceException e) {
+				if (attempt == MAX_ATTEMPTS || !isTransient(e)) {
+					throw new IllegalStateException(partition.describe() + ": " + e.getMessage(), e);
+				}
+			} finally {
+				if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+				manager.close();
+			}
+			Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+		}
+	}
+
+	/**
+	 * Whether running the partition again could succeed: Derby and MySQL report lock timeouts and
+	 * deadlocks with SQL states of class 40, and lost connections with class 08.
+	 */
+	private static boolean isTransient(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SQLTransientException) return true;
+			if (cause instanceof SQLException sql && sql.getSQLState() != null
+					&& (sql.getSQLState().startsWith("40") || sql.getSQLState().startsWith("08"))) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The book records written in one transaction, with the lines they came from for error messages.
+	 */
+	private static class Partition {
+		private final Path file;
+		private final List<Map<String, String>> records;
+		private final long[] lines;
+
+		Partition(Path file, int capacity) {
+			this.file = file;
+			this.records = new ArrayList<>(capacity);
+			this.lines = new long[capacity];
+		}
+
+		void add(Map<String, String> record, long line) {
+			lines[records.size()] = line;
+			records.add(record);
+		}
+
+		int size() {
+			return records.size();
+		}
+
+		String describe(int i) {
+			return file.getFileName() + " line " + lines[i];
+		}
+
+		String describe() {
+			return file.getFileName() + " partition of " + size() + " books from line " + lines[0];
+		}
+	}
+}
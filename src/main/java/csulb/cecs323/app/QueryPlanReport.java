@@ -0,0 +1,166 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.CatalogKeys;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the hot lookups of the application against Derby with runtime statistics switched on, and
+ * reports for each one whether Derby answered it with an index scan or by scanning the whole table.
+ * Derby shares one physical index between a declared index and a foreign key constraint on the same
+ * column, so the plan may name the constraint rather than the index declared in the model.
+ * Meant to be run against a database holding a realistic amount of data, since on a nearly empty
+ * table the optimizer may well prefer a scan.
+ */
+public class QueryPlanReport {
+	private static final Pattern USING = Pattern.compile("using (?:index|constraint) (\\S+)");
+
+	/**
+	 * Each hot lookup: its SQL, the index declared for it, and a query for a value to look up.
+	 * @param surrogateKeys  Whether the foreign key columns hold IDs rather than names.
+	 */
+	private static Map<String, String[]> queries(boolean surrogateKeys) {
+		String author = surrogateKeys ? "AUTHORING_ENTITY_ID" : "AUTHORING_ENTITY_NAME";
+		String publisher = surrogateKeys ? "PUBLISHER_ID" : "PUBLISHER_NAME";
+		String team = surrogateKeys ? "AD_HOC_TEAM_ID" : "AD_HOC_TEAMS_EMAIL";
+		String member = surrogateKeys ? "INDIVIDUAL_AUTHOR_ID" : "INDIVIDUAL_AUTHORS_EMAIL";
+
+		Map<String, String[]> queries = new LinkedHashMap<>();
+		queries.put("Books by author", new String[] {
+				"SELECT ISBN, TITLE FROM BOOKS WHERE " + author + " = ?", "BOOKS_AUTHOR_IDX",
+				"SELECT " + author + " FROM BOOKS"});
+		queries.put("Books by publisher", new String[] {
+				"SELECT ISBN, TITLE FROM BOOKS WHERE " + publisher + " = ?", "BOOKS_PUBLISHER_IDX",
+				"SELECT " + publisher + " FROM BOOKS"});
+		queries.put("Books by title", new String[] {
+				"SELECT ISBN, TITLE FROM BOOKS WHERE TITLE = ?", "BOOKS_TITLE_IDX",
+				"SELECT TITLE FROM BOOKS"});
+		queries.put("Books by year", new String[] {
+				"SELECT ISBN, TITLE FROM BOOKS WHERE YEAR_PUBLISHED = ?", "BOOKS_YEAR_IDX",
+				"SELECT YEAR_PUBLISHED FROM BOOKS"});
+		queries.put("Members of a team", new String[] {
+				"SELECT " + member + " FROM AD_HOC_TEAMS_MEMBER WHERE " + team + " = ?", "AD_HOC_TEAMS_MEMBER_TEAM_IDX",
+				"SELECT " + team + " FROM AD_HOC_TEAMS_MEMBER"});
+		queries.put("Teams of an author", new String[] {
+				"SELECT " + team + " FROM AD_HOC_TEAMS_MEMBER WHERE " + member + " = ?", "AD_HOC_TEAMS_MEMBER_AUTHOR_IDX",
+				"SELECT " + member + " FROM AD_HOC_TEAMS_MEMBER"});
+		return queries;
+	}
+
+	private final EntityManagerFactory factory;
+
+	public QueryPlanReport(EntityManagerFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * How Derby answered one hot lookup.
+	 * @param index  The name of the index or constraint it scanned, or null if it scanned the whole table.
+	 */
+	public record Plan(String lookup, String expectedIndex, String index) {
+		public boolean isIndexed() {
+			return index != null;
+		}
+	}
+
+	/**
+	 * Print one line per hot lookup, saying which index it used or that it scanned the table.
+	 * @return  True if every lookup was answered with an index scan.
+	 */
+	public boolean run() throws SQLException {
+		boolean allIndexed = true;
+		for (Plan plan : plans()) {
+			allIndexed &= plan.isIndexed();
+			System.out.printf("%-20s %s%n", plan.lookup(),
+					plan.isIndexed() ? "index scan using " + plan.index() : "TABLE SCAN, expected " + plan.expectedIndex());
+		}
+		return allIndexed;
+	}
+
+	/**
+	 * Run every hot lookup once and read how Derby answered it.
+	 */
+	public List<Plan> plans() throws SQLException {
+		EntityManager manager = factory.createEntityManager();
+		List<Plan> plans = new ArrayList<>();
+
+		try {
+			manager.getTransaction().begin();
+			Connection connection = manager.unwrap(Connection.class);
+
+			try (CallableStatement on = connection.prepareCall("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)")) {
+				on.execute();
+			}
+
+			for (Map.Entry<String, String[]> query : queries(CatalogKeys.isSurrogateKeyed(manager)).entrySet()) {
+				String sql = query.getValue()[0];
+
+				try (PreparedStatement statement = connection.prepareStatement(sql)) {
+					statement.setObject(1, sampleValue(connection, query.getValue()[2]));
+					try (ResultSet rows = statement.executeQuery()) {
+						while (rows.next()) {
+							// read every row, the statistics are only complete once the result set is drained
+						}
+					}
+				}
+
+				plans.add(new Plan(query.getKey(), query.getValue()[1], scannedIndex(lastPlan(connection))));
+			}
+
+			try (CallableStatement off = connection.prepareCall("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)")) {
+				off.execute();
+			}
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+
+		return plans;
+	}
+
+	/**
+	 * Take a value that exists in the table to look up, so the plan reflects a real lookup.  Falls back to
+	 * an arbitrary value when the table is empty.
+	 */
+	private static Object sampleValue(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.setMaxRows(1);
+			try (ResultSet rows = statement.executeQuery(sql)) {
+				if (rows.next()) return rows.getObject(1);
+			}
+		}
+		return sql.contains("YEAR_PUBLISHED") ? (Object) 0 : "";
+	}
+
+	private static String lastPlan(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+		     ResultSet rows = statement.executeQuery("VALUES SYSCS_UTIL.SYSCS_GET_RUNTIMESTATISTICS()")) {
+			return rows.next() && rows.getString(1) != null ? rows.getString(1) : "";
+		}
+	}
+
+	/**
+	 * @return The index or constraint named on the index scan line of the plan, or null if there is no
+	 *         index scan.
+	 */
+	private static String scannedIndex(String plan) {
+		int scan = plan.indexOf("Index Scan ResultSet");
+		if (scan < 0) return null;
+		int line = plan.indexOf('\n', scan);
+		Matcher using = USING.matcher(plan.substring(scan, line < 0 ? plan.length() : line));
+		return using.find() ? using.group(1) : "an unnamed index";
+	}
+}
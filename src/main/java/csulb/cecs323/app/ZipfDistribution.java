@@ -0,0 +1,69 @@
+package csulb.cecs323.app;
+
+import java.util.SplittableRandom;
+
+/**
+ * Ranks from 1 to n drawn with probability proportional to 1 / rank^exponent, so a few ranks come up
+ * very often and most rarely.  An exponent of 0 draws every rank equally often; around 1 is typical of
+ * how books are spread over authors and publishers.
+ * <p>
+ * Sampled by rejection-inversion (Hormann and Derflinger, "Rejection-inversion to generate variates
+ * from monotone discrete distributions", 1996), which takes constant time and memory however many
+ * ranks there are, rather than a table of cumulative probabilities to search.
+ */
+final class ZipfDistribution {
+	private final long n;
+	private final double exponent;
+	private final double hIntegralX1;
+	private final double hIntegralN;
+	private final double threshold;
+
+	ZipfDistribution(long n, double exponent) {
+		if (n <= 0) throw new IllegalArgumentException("The number of ranks must be positive.");
+		if (exponent < 0) throw new IllegalArgumentException("The exponent must not be negative.");
+		this.n = n;
+		this.exponent = exponent;
+		this.hIntegralX1 = hIntegral(1.5) - 1;
+		this.hIntegralN = hIntegral(n + 0.5);
+		this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+	}
+
+	/**
+	 * @return A rank from 1 to n.
+	 */
+	long sample(SplittableRandom random) {
+		if (exponent == 0) return 1 + random.nextLong(n);
+		while (true) {
+			double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+			double x = hIntegralInverse(u);
+			long k = Math.max(1, Math.min(n, (long) (x + 0.5)));
+			// accepted straight away for most draws, otherwise when u falls under the hat at k
+			if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) return k;
+		}
+	}
+
+	private double h(double x) {
+		return Math.exp(-exponent * Math.log(x));
+	}
+
+	/** The integral of h from 1 to x, the hat function inverted to draw x. */
+	private double hIntegral(double x) {
+		double logX = Math.log(x);
+		return expm1OverX((1 - exponent) * logX) * logX;
+	}
+
+	private double hIntegralInverse(double x) {
+		double t = Math.max(-1, x * (1 - exponent));
+		return Math.exp(log1pOverX(t) * x);
+	}
+
+	/** (e^x - 1) / x, taking its limit of 1 near 0. */
+	private static double expm1OverX(double x) {
+		return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x / 2 * (1 + x / 3 * (1 + x / 4));
+	}
+
+	/** ln(1 + x) / x, taking its limit of 1 near 0. */
+	private static double log1pOverX(double x) {
+		return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+	}
+}
@@ -1,17 +1,64 @@
 package csulb.cecs323.model;
 
 import javax.persistence.*;
+import org.eclipse.persistence.config.QueryHints;
 import java.util.Set;
 
 @Entity(name = "AdHocTeam")
 @DiscriminatorValue("AdHocTeam")
+// Every team, then the members of all of them in IN queries of up to 100 teams
+@NamedQuery(
+		name="ReturnAllAdHocTeams",
+		query = "SELECT a FROM AdHocTeam a",
+		hints = {
+				@QueryHint(name = QueryHints.BATCH, value = "a.teamMembers"),
+				@QueryHint(name = QueryHints.BATCH_TYPE, value = "IN"),
+				@QueryHint(name = QueryHints.BATCH_SIZE, value = "100")
+		}
+)
+// A page of team rosters: the teams, then the members of every team on the page in one IN query
+@NamedQuery(
+		name="ReturnAdHocTeamRosterFirstPage",
+		query = "SELECT t FROM AdHocTeam t ORDER BY t.name",
+		hints = {
+				@QueryHint(name = QueryHints.BATCH, value = "t.teamMembers"),
+				@QueryHint(name = QueryHints.BATCH_TYPE, value = "IN")
+		}
+)
+@NamedQuery(
+		name="ReturnAdHocTeamRosterPageAfter",
+		query = "SELECT t FROM AdHocTeam t WHERE t.name > :key ORDER BY t.name",
+		hints = {
+				@QueryHint(name = QueryHints.BATCH, value = "t.teamMembers"),
+				@QueryHint(name = QueryHints.BATCH_TYPE, value = "IN")
+		}
+)
+@NamedQuery(
+		name="ReturnAdHocTeamRosterPageBefore",
+		query = "SELECT t FROM AdHocTeam t WHERE t.name < :key ORDER BY t.name DESC",
+		hints = {
+				@QueryHint(name = QueryHints.BATCH, value = "t.teamMembers"),
+				@QueryHint(name = QueryHints.BATCH_TYPE, value = "IN")
+		}
+)
+// Who is on which team, by name, read when the catalog snapshot is loaded (see CatalogSnapshots)
+@NamedQuery(
+		name="ReturnTeamMemberNames",
+		query = "SELECT t.name, m.name FROM AdHocTeam t JOIN t.teamMembers m"
+)
 public class AdHocTeam extends Authoring_Entities {
 
+	// Batch fetched by the queries that read teams by the page or all at once, rather than on the mapping:
+	// a mapping level batch fetch fails for teams read by a query on Authoring_Entities or a native query
 	@ManyToMany
 	@JoinTable(
 			name = "AD_HOC_TEAMS_MEMBER",
 			joinColumns = @JoinColumn(name = "AD_HOC_TEAMS_EMAIL"),
-			inverseJoinColumns = @JoinColumn(name = "INDIVIDUAL_AUTHORS_EMAIL")
+			inverseJoinColumns = @JoinColumn(name = "INDIVIDUAL_AUTHORS_EMAIL"),
+			indexes = {
+					@Index(name = "AD_HOC_TEAMS_MEMBER_TEAM_IDX", columnList = "AD_HOC_TEAMS_EMAIL"),
+					@Index(name = "AD_HOC_TEAMS_MEMBER_AUTHOR_IDX", columnList = "INDIVIDUAL_AUTHORS_EMAIL")
+			}
 	)
 	private Set<IndividualAuthor> teamMembers;
 
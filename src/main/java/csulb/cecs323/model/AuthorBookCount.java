@@ -0,0 +1,8 @@
+package csulb.cecs323.model;
+
+/**
+ * How many books an authoring entity has published, counted by the database rather than by loading
+ * the works collection.  Filled in by the CountBooksByAuthor constructor queries.
+ */
+public record AuthorBookCount(String name, long books) {
+}
@@ -0,0 +1,7 @@
+package csulb.cecs323.model;
+
+/**
+ * The name of an authoring entity, all that a list of authors shows.
+ */
+public record AuthorSummary(String name) {
+}
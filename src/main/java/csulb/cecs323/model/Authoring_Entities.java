@@ -1,9 +1,20 @@
 package csulb.cecs323.model;
 
 import javax.persistence.*;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheIndex;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.QueryType;
 import java.util.Set;
 
 @Entity
+// Shared by all the authoring entity subclasses
+@Cacheable
+@Cache(type = CacheType.CACHE, size = 5000, expiry = 3600000)
+// The subclass ReturnAll* queries filter on the discriminator, so give it an index
+@Table(indexes = @Index(name = "AUTHORING_ENTITIES_TYPE_IDX", columnList = "AUTHORING_ENTITY_TYPE"))
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "AUTHORING_ENTITY_TYPE")
 @NamedNativeQuery(
@@ -19,7 +30,59 @@ import java.util.Set;
 				"FROM   AUTHORING_ENTITIES ",
 		resultClass = Authoring_Entities.class
 )
+@NamedQuery(
+		name="ReturnAuthorSummariesFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.AuthorSummary(a.name) FROM Authoring_Entities a ORDER BY a.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnAuthorSummariesPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.AuthorSummary(a.name) FROM Authoring_Entities a " +
+				"WHERE a.name > :key ORDER BY a.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnAuthorSummariesPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.AuthorSummary(a.name) FROM Authoring_Entities a " +
+				"WHERE a.name < :key ORDER BY a.name DESC",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+// The whole rows a page at a time, read when the catalog snapshot is loaded (see CatalogSnapshots).
+// Kept out of the shared cache, which it would fill with every author in the catalog.
+@NamedQuery(
+		name="ReturnAuthorsFirstPage",
+		query = "SELECT a FROM Authoring_Entities a ORDER BY a.name",
+		hints = {
+				@QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE),
+				@QueryHint(name = QueryHints.MAINTAIN_CACHE, value = HintValues.FALSE)
+		}
+)
+@NamedQuery(
+		name="ReturnAuthorsPageAfter",
+		query = "SELECT a FROM Authoring_Entities a WHERE a.name > :key ORDER BY a.name",
+		hints = {
+				@QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE),
+				@QueryHint(name = QueryHints.MAINTAIN_CACHE, value = HintValues.FALSE)
+		}
+)
+// Looks an author up by name whichever key the model is mapped with (see CatalogKeys).  As a single
+// object query on the cache index it is answered from the shared cache when it can be.
+@CacheIndex(columnNames = "NAME")
+@NamedQuery(
+		name="ReturnAuthorByName",
+		query = "SELECT a FROM Authoring_Entities a WHERE a.name = :name",
+		hints = @QueryHint(name = QueryHints.QUERY_TYPE, value = QueryType.ReadObject)
+)
+// The authors a chunk of book records refers to, read at once (see CatalogReferences)
+@NamedQuery(
+		name="ReturnAuthorsByNames",
+		query = "SELECT a FROM Authoring_Entities a WHERE a.name IN :names"
+)
 public abstract class Authoring_Entities {
+	// Only mapped in the surrogate key variant of the model, see META-INF/orm-surrogate-keys.xml
+	@Transient
+	private Long id;
+
 	@Id
 	@Column(nullable = false, length = 80)
 	private String name;
@@ -41,6 +104,14 @@ public abstract class Authoring_Entities {
 		this.email = email;
 	}
 
+	public Long getId() {
+		return id;
+	}
+
+	protected void setId(Long id) {
+		this.id = id;
+	}
+
 	public String getName() {
 		return name;
 	}
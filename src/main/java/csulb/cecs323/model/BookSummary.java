@@ -0,0 +1,8 @@
+package csulb.cecs323.model;
+
+/**
+ * The ISBN and title of a book, all that a list of books shows.  Filled in by the ReturnBookSummaries
+ * constructor queries, so no Books entity is built or tracked for a list screen.
+ */
+public record BookSummary(String isbn, String title) {
+}
@@ -1,8 +1,21 @@
 package csulb.cecs323.model;
 
 import javax.persistence.*;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
 
 @Entity(name = "Books")
+// The foreign keys are what "books by author/publisher" and the works collections look up on
+@Table(indexes = {
+		@Index(name = "BOOKS_AUTHOR_IDX", columnList = "AUTHORING_ENTITY_NAME"),
+		@Index(name = "BOOKS_PUBLISHER_IDX", columnList = "PUBLISHER_NAME"),
+		@Index(name = "BOOKS_TITLE_IDX", columnList = "TITLE"),
+		@Index(name = "BOOKS_YEAR_IDX", columnList = "YEAR_PUBLISHED")
+})
+@Cacheable
+@Cache(type = CacheType.CACHE, size = 10000, expiry = 600000)
 @NamedNativeQuery(
 		name="ReturnBooks",
 		query=	"SELECT * " +
@@ -16,10 +29,129 @@ import javax.persistence.*;
 				"FROM   BOOKS ",
 		resultClass = Books.class
 )
+// Read-only projections for the list screens, which only show the ISBN and title
+@NamedQuery(
+		name="ReturnBookSummariesFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.BookSummary(b.ISBN, b.title) FROM Books b ORDER BY b.ISBN",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnBookSummariesPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.BookSummary(b.ISBN, b.title) FROM Books b " +
+				"WHERE b.ISBN > :key ORDER BY b.ISBN",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnBookSummariesPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.BookSummary(b.ISBN, b.title) FROM Books b " +
+				"WHERE b.ISBN < :key ORDER BY b.ISBN DESC",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+// Everything shown on the book detail screen, in one statement
+@NamedQuery(
+		name="ReturnBookDetail",
+		query = "SELECT b FROM Books b JOIN FETCH b.author JOIN FETCH b.publisher " +
+				"WHERE b.ISBN = :isbn"
+)
+// Every book with its author and publisher, flattened into rows for CatalogExporter
+@NamedQuery(
+		name="ExportBooks",
+		query = "SELECT b.ISBN, b.title, b.yearPublished, a.name, a.email, p.name, p.email, p.phone " +
+				"FROM Books b JOIN b.author a JOIN b.publisher p ORDER BY b.ISBN"
+)
+// What the search index holds for the books of some publishers, read when it is rebuilt (see CatalogSearch)
+@NamedQuery(
+		name="ReturnSearchableBooks",
+		query = "SELECT b.ISBN, b.title, b.yearPublished, a.name, p.name " +
+				"FROM Books b JOIN b.author a JOIN b.publisher p WHERE p.name IN :publishers"
+)
+// What the catalog snapshot holds for each book, a page at a time (see CatalogSnapshots)
+@NamedQuery(
+		name="ReturnBookRowsFirstPage",
+		query = "SELECT NEW csulb.cecs323.snapshot.BookRow(b.ISBN, b.title, b.yearPublished, a.name, p.name) " +
+				"FROM Books b JOIN b.author a JOIN b.publisher p ORDER BY b.ISBN"
+)
+@NamedQuery(
+		name="ReturnBookRowsPageAfter",
+		query = "SELECT NEW csulb.cecs323.snapshot.BookRow(b.ISBN, b.title, b.yearPublished, a.name, p.name) " +
+				"FROM Books b JOIN b.author a JOIN b.publisher p WHERE b.ISBN > :key ORDER BY b.ISBN"
+)
+// Set-based removals and reassignments, run as a single statement each (see BulkBookOperations)
+@NamedQuery(
+		name="DeleteBooksByPublisher",
+		query = "DELETE FROM Books b WHERE b.publisher = :publisher"
+)
+@NamedQuery(
+		name="DeleteBooksByAuthor",
+		query = "DELETE FROM Books b WHERE b.author = :author"
+)
+@NamedQuery(
+		name="DeleteBooksByYearRange",
+		query = "DELETE FROM Books b WHERE b.yearPublished BETWEEN :firstYear AND :lastYear"
+)
+@NamedQuery(
+		name="ReassignBooksPublisher",
+		query = "UPDATE Books b SET b.publisher = :newPublisher WHERE b.publisher = :oldPublisher"
+)
+// Catalog statistics, counted by the database a page of groups at a time (see CatalogStatistics).
+// Per author and publisher the count is a subquery on the foreign key index, so a page only counts
+// the books of its own rows instead of grouping the whole table before the first page is returned.
+@NamedQuery(
+		name="CountBooksByAuthorFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.AuthorBookCount(a.name, (SELECT COUNT(b) FROM Books b WHERE b.author = a)) " +
+				"FROM Authoring_Entities a ORDER BY a.name"
+)
+@NamedQuery(
+		name="CountBooksByAuthorPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.AuthorBookCount(a.name, (SELECT COUNT(b) FROM Books b WHERE b.author = a)) " +
+				"FROM Authoring_Entities a WHERE a.name > :key ORDER BY a.name"
+)
+@NamedQuery(
+		name="CountBooksByAuthorPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.AuthorBookCount(a.name, (SELECT COUNT(b) FROM Books b WHERE b.author = a)) " +
+				"FROM Authoring_Entities a WHERE a.name < :key ORDER BY a.name DESC"
+)
+@NamedQuery(
+		name="CountBooksByPublisherFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.PublisherBookCount(p.name, (SELECT COUNT(b) FROM Books b WHERE b.publisher = p)) " +
+				"FROM Publishers p ORDER BY p.name"
+)
+@NamedQuery(
+		name="CountBooksByPublisherPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.PublisherBookCount(p.name, (SELECT COUNT(b) FROM Books b WHERE b.publisher = p)) " +
+				"FROM Publishers p WHERE p.name > :key ORDER BY p.name"
+)
+@NamedQuery(
+		name="CountBooksByPublisherPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.PublisherBookCount(p.name, (SELECT COUNT(b) FROM Books b WHERE b.publisher = p)) " +
+				"FROM Publishers p WHERE p.name < :key ORDER BY p.name DESC"
+)
+@NamedQuery(
+		name="CountBooksByYearFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.YearBookCount(b.yearPublished, COUNT(b)) FROM Books b " +
+				"GROUP BY b.yearPublished ORDER BY b.yearPublished"
+)
+@NamedQuery(
+		name="CountBooksByYearPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.YearBookCount(b.yearPublished, COUNT(b)) FROM Books b " +
+				"WHERE b.yearPublished > :key GROUP BY b.yearPublished ORDER BY b.yearPublished"
+)
+@NamedQuery(
+		name="CountBooksByYearPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.YearBookCount(b.yearPublished, COUNT(b)) FROM Books b " +
+				"WHERE b.yearPublished < :key GROUP BY b.yearPublished ORDER BY b.yearPublished DESC"
+)
+@NamedQuery(
+		name="TopPublishersByBookCount",
+		query = "SELECT NEW csulb.cecs323.model.PublisherBookCount(p.name, COUNT(b)) " +
+				"FROM Books b JOIN b.publisher p GROUP BY p.name ORDER BY COUNT(b) DESC, p.name"
+)
 public class Books {
 
+	// The canonical ISBN-13, stored as a BIGINT
 	@Id
-	@Column(nullable = false, length = 17)
+	@Convert(converter = IsbnConverter.class)
+	@Column(nullable = false)
 	private String ISBN;
 
 	@Column(nullable = false, length = 80)
@@ -58,8 +190,12 @@ public class Books {
 		return publisher;
 	}
 
+	/**
+	 * @param isbn  An ISBN-10 or ISBN-13, written any way {@link Isbn} reads; the canonical ISBN-13 is kept.
+	 * @throws IllegalArgumentException if it is not an ISBN.
+	 */
 	public void setISBN(String isbn) {
-		this.ISBN = isbn;
+		this.ISBN = Isbn.normalize(isbn);
 	}
 
 	public void setTitle(String title) {
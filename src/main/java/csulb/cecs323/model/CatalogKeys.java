@@ -0,0 +1,78 @@
+package csulb.cecs323.model;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.FlushModeType;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Looks publishers and authoring entities up by name.  In the natural key model the name is the primary
+ * key, so these are plain finds and references; in the surrogate key variant the name is a unique
+ * business key and is looked up with a query.  Code that only knows the name should come through here
+ * rather than calling find or getReference with it.
+ */
+public final class CatalogKeys {
+	private CatalogKeys() {}
+
+	/**
+	 * @return Whether the factory behind the manager maps the surrogate key variant of the model.
+	 */
+	public static boolean isSurrogateKeyed(EntityManager manager) {
+		return manager.getMetamodel().entity(Publishers.class).getIdType().getJavaType() != String.class;
+	}
+
+	/**
+	 * @return The publisher with the name, or null if there is none.
+	 */
+	public static Publishers findPublisher(EntityManager manager, String name) {
+		if (!isSurrogateKeyed(manager)) return manager.find(Publishers.class, name);
+		return byName(manager, "ReturnPublisherByName", Publishers.class, name);
+	}
+
+	/**
+	 * @return The authoring entity with the name, or null if there is none.
+	 */
+	public static Authoring_Entities findAuthor(EntityManager manager, String name) {
+		if (!isSurrogateKeyed(manager)) return manager.find(Authoring_Entities.class, name);
+		return byName(manager, "ReturnAuthorByName", Authoring_Entities.class, name);
+	}
+
+	/**
+	 * A publisher to set on a relationship.  Like getReference, this might not read the row.
+	 * @throws EntityNotFoundException if the surrogate key variant finds no publisher with the name.
+	 */
+	public static Publishers publisherReference(EntityManager manager, String name) {
+		if (!isSurrogateKeyed(manager)) return manager.getReference(Publishers.class, name);
+		return required(findPublisher(manager, name), "publisher", name);
+	}
+
+	/**
+	 * An authoring entity of the given type to set on a relationship.  Like getReference, this might not
+	 * read the row, unless the type is abstract: the woven classes can only make a reference to a class
+	 * that can be instantiated, so for Authoring_Entities the row is read to learn its subclass.
+	 * @throws EntityNotFoundException if the row is read and there is no such author with the name.
+	 */
+	public static <T extends Authoring_Entities> T authorReference(EntityManager manager, Class<T> type, String name) {
+		if (!isSurrogateKeyed(manager) && !Modifier.isAbstract(type.getModifiers())) return manager.getReference(type, name);
+		Authoring_Entities author = isSurrogateKeyed(manager) ? findAuthor(manager, name) : manager.find(type, name);
+		if (author != null && !type.isInstance(author)) author = null;
+		return type.cast(required(author, "author", name));
+	}
+
+	private static <T> T byName(EntityManager manager, String queryName, Class<T> type, String name) {
+		// Flushing before every lookup would send a bulk insert's rows one at a time instead of in batches,
+		// so look in the cache and database first, and only flush to find one persisted in this transaction.
+		for (FlushModeType flushMode : new FlushModeType[] {FlushModeType.COMMIT, FlushModeType.AUTO}) {
+			List<T> result = manager.createNamedQuery(queryName, type)
+					.setParameter("name", name).setFlushMode(flushMode).getResultList();
+			if (!result.isEmpty()) return result.get(0);
+		}
+		return null;
+	}
+
+	private static <T> T required(T entity, String noun, String name) {
+		if (entity == null) throw new EntityNotFoundException("No " + noun + " named " + name);
+		return entity;
+	}
+}
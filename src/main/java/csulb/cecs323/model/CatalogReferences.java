@@ -0,0 +1,77 @@
+package csulb.cecs323.model;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The publishers and authoring entities a chunk of records refers to by name, read with one IN query
+ * for all of the chunk's names instead of a find or query per record.  A name that was not loaded is
+ * looked up through {@link CatalogKeys} as before.  The entities belong to the manager's persistence
+ * context, so the references must be cleared whenever it is.
+ */
+public class CatalogReferences {
+	// Keeps each statement's parameter list to a size every database accepts
+	private static final int NAMES_PER_QUERY = 500;
+
+	private final EntityManager manager;
+	private final Map<String, Publishers> publishers = new HashMap<>();
+	private final Map<String, Authoring_Entities> authors = new HashMap<>();
+
+	public CatalogReferences(EntityManager manager) {
+		this.manager = manager;
+	}
+
+	/**
+	 * Read the publishers and authoring entities with the names that have not been read already.
+	 */
+	public void load(Collection<String> publisherNames, Collection<String> authorNames) {
+		// in the natural key model a publisher reference is only its name, and reads nothing
+		if (CatalogKeys.isSurrogateKeyed(manager)) {
+			loadAll("ReturnPublishersByNames", Publishers.class, publisherNames, publishers, Publishers::getName);
+		}
+		loadAll("ReturnAuthorsByNames", Authoring_Entities.class, authorNames, authors, Authoring_Entities::getName);
+	}
+
+	/**
+	 * @see CatalogKeys#publisherReference
+	 */
+	public Publishers publisher(String name) {
+		Publishers publisher = publishers.get(name);
+		return publisher != null ? publisher : CatalogKeys.publisherReference(manager, name);
+	}
+
+	/**
+	 * @see CatalogKeys#authorReference
+	 */
+	public <T extends Authoring_Entities> T author(Class<T> type, String name) {
+		Authoring_Entities author = authors.get(name);
+		return type.isInstance(author) ? type.cast(author) : CatalogKeys.authorReference(manager, type, name);
+	}
+
+	public void clear() {
+		publishers.clear();
+		authors.clear();
+	}
+
+	private <T> void loadAll(String queryName, Class<T> type, Collection<String> names, Map<String, T> loaded, Function<T, String> name) {
+		List<String> missing = new ArrayList<>();
+		for (String each : new LinkedHashSet<>(names)) {
+			if (!loaded.containsKey(each)) missing.add(each);
+		}
+
+		for (int from = 0; from < missing.size(); from += NAMES_PER_QUERY) {
+			// like CatalogKeys, do not flush the chunk's pending inserts just to look the names up
+			List<T> found = manager.createNamedQuery(queryName, type)
+					.setParameter("names", missing.subList(from, Math.min(from + NAMES_PER_QUERY, missing.size())))
+					.setFlushMode(FlushModeType.COMMIT).getResultList();
+			for (T entity : found) loaded.put(name.apply(entity), entity);
+		}
+	}
+}
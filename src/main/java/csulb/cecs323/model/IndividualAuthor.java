@@ -1,13 +1,25 @@
 package csulb.cecs323.model;
 
 import javax.persistence.*;
+import org.eclipse.persistence.config.QueryHints;
 
 import java.util.Set;
 
 @Entity(name = "IndividualAuthor")
 @DiscriminatorValue("IndividualAuthor")
+// Every individual author, then the teams of all of them in IN queries of up to 100 authors
+@NamedQuery(
+		name="ReturnAllIndividualAuthors",
+		query = "SELECT a FROM IndividualAuthor a",
+		hints = {
+				@QueryHint(name = QueryHints.BATCH, value = "a.teamMemberships"),
+				@QueryHint(name = QueryHints.BATCH_TYPE, value = "IN"),
+				@QueryHint(name = QueryHints.BATCH_SIZE, value = "100")
+		}
+)
 public class IndividualAuthor extends Authoring_Entities {
 
+	// Batch fetched by ReturnAllIndividualAuthors rather than on the mapping, see AdHocTeam.teamMembers
 	@ManyToMany(mappedBy = "teamMembers")
 	private Set<AdHocTeam> teamMemberships;
 
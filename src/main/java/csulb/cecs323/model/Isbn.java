@@ -0,0 +1,122 @@
+package csulb.cecs323.model;
+
+/**
+ * Reads ISBNs however they are written, as ISBN-10 or ISBN-13, with or without hyphens or spaces, and
+ * checks their check digit.  Every ISBN has one canonical form, the 13 digits of its ISBN-13 (an
+ * ISBN-10 is converted by prefixing 978), which is how books are stored and looked up, so that
+ * "978-0-13-468599-1", "9780134685991" and "0-13-468599-7" are all the same book.
+ * <p>
+ * In the database the canonical form is kept as a number (see {@link IsbnConverter}): 13 digits fit in
+ * a BIGINT, half the width of the text, in the primary key and in every index holding it.
+ */
+public final class Isbn {
+	private Isbn() {}
+
+	/**
+	 * @param text  An ISBN-10 or ISBN-13, hyphens and spaces allowed.
+	 * @return      Its canonical 13 digits.
+	 * @throws IllegalArgumentException if it is not a well formed ISBN with a valid check digit.
+	 */
+	public static String normalize(String text) {
+		return format(parse(text));
+	}
+
+	/**
+	 * @param text  An ISBN-10 or ISBN-13, hyphens and spaces allowed.
+	 * @return      Its ISBN-13 as a number.
+	 * @throws IllegalArgumentException if it is not a well formed ISBN with a valid check digit.
+	 */
+	public static long parse(String text) {
+		if (text == null || text.isBlank()) throw new IllegalArgumentException("ISBN cannot be empty.");
+		char[] digits = new char[13];
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '-' || c == ' ') continue;
+			boolean digit = c >= '0' && c <= '9';
+			// X stands for a check digit of 10, only in the last place of an ISBN-10
+			if (!digit && c != 'X' && c != 'x' || length == 13) throw invalid(text);
+			digits[length++] = Character.toUpperCase(c);
+		}
+
+		if (length == 10) return fromIsbn10(digits, text);
+		if (length != 13 || contains(digits, 13, 'X')) throw invalid(text);
+		if (!digitsMatch(digits, 0, "978") && !digitsMatch(digits, 0, "979")) throw invalid(text);
+		if (digits[12] - '0' != checkDigit13(digits)) throw new IllegalArgumentException("ISBN " + text + " has the wrong check digit.");
+		return Long.parseLong(new String(digits));
+	}
+
+	/**
+	 * @return Whether the text is a well formed ISBN-10 or ISBN-13 with a valid check digit.
+	 */
+	public static boolean isValid(String text) {
+		try {
+			parse(text);
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param first12  The first 12 digits of an ISBN-13, as a number.
+	 * @return         The whole ISBN-13 as a number, its check digit added.
+	 */
+	public static long withCheckDigit(long first12) {
+		int sum = 0;
+		long rest = first12;
+		// digit i, counting from 0 on the left, is weighted 3 when i is odd
+		for (int i = 11; i >= 0; i--, rest /= 10) sum += (int) (rest % 10) * (i % 2 == 0 ? 1 : 3);
+		return first12 * 10 + (10 - sum % 10) % 10;
+	}
+
+	/**
+	 * @param isbn  An ISBN-13 as a number, as returned by {@link #parse}.
+	 * @return      Its canonical 13 digits.
+	 */
+	public static String format(long isbn) {
+		String digits = Long.toString(isbn);
+		return digits.length() >= 13 ? digits : "0".repeat(13 - digits.length()) + digits;
+	}
+
+	private static long fromIsbn10(char[] digits, String text) {
+		if (contains(digits, 9, 'X')) throw invalid(text);
+		int sum = 0;
+		for (int i = 0; i < 9; i++) sum += (digits[i] - '0') * (10 - i);
+		int check = digits[9] == 'X' ? 10 : digits[9] - '0';
+		if ((sum + check) % 11 != 0) throw new IllegalArgumentException("ISBN " + text + " has the wrong check digit.");
+
+		char[] isbn13 = new char[13];
+		isbn13[0] = '9';
+		isbn13[1] = '7';
+		isbn13[2] = '8';
+		System.arraycopy(digits, 0, isbn13, 3, 9);
+		isbn13[12] = (char) ('0' + checkDigit13(isbn13));
+		return Long.parseLong(new String(isbn13));
+	}
+
+	/** The check digit of an ISBN-13 from its first 12 digits, weighted 1, 3, 1, 3, ... */
+	private static int checkDigit13(char[] digits) {
+		int sum = 0;
+		for (int i = 0; i < 12; i++) sum += (digits[i] - '0') * (i % 2 == 0 ? 1 : 3);
+		return (10 - sum % 10) % 10;
+	}
+
+	private static boolean contains(char[] digits, int length, char c) {
+		for (int i = 0; i < length; i++) {
+			if (digits[i] == c) return true;
+		}
+		return false;
+	}
+
+	private static boolean digitsMatch(char[] digits, int from, String prefix) {
+		for (int i = 0; i < prefix.length(); i++) {
+			if (digits[from + i] != prefix.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	private static IllegalArgumentException invalid(String text) {
+		return new IllegalArgumentException("'" + text + "' is not an ISBN-10 or ISBN-13.");
+	}
+}
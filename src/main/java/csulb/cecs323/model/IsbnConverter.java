@@ -0,0 +1,25 @@
+package csulb.cecs323.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores an ISBN as the number of its canonical ISBN-13 (see {@link Isbn}).  Query parameters compared
+ * with the ISBN are converted by it too, but EclipseLink looks a primary key parameter up in the cache
+ * before converting it, so normalize an ISBN before looking its book up.  Anything that is not an ISBN,
+ * the empty string included, is rejected by {@link Isbn#parse}.
+ */
+@Converter
+public class IsbnConverter implements AttributeConverter<String, Long> {
+
+	@Override
+	public Long convertToDatabaseColumn(String isbn) {
+		if (isbn == null) return null;
+		return Isbn.parse(isbn);
+	}
+
+	@Override
+	public String convertToEntityAttribute(Long isbn) {
+		return isbn == null ? null : Isbn.format(isbn);
+	}
+}
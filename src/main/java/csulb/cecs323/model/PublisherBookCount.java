@@ -0,0 +1,8 @@
+package csulb.cecs323.model;
+
+/**
+ * How many books a publisher has published, counted by the database.  Filled in by the
+ * CountBooksByPublisher and TopPublishersByBookCount constructor queries.
+ */
+public record PublisherBookCount(String name, long books) {
+}
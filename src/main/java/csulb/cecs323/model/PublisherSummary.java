@@ -0,0 +1,7 @@
+package csulb.cecs323.model;
+
+/**
+ * The name of a publisher, all that a list of publishers shows.
+ */
+public record PublisherSummary(String name) {
+}
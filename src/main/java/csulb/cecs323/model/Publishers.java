@@ -1,7 +1,16 @@
 package csulb.cecs323.model;
 import javax.persistence.*;
+import org.eclipse.persistence.annotations.Cache;
+import org.eclipse.persistence.annotations.CacheIndex;
+import org.eclipse.persistence.annotations.CacheType;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.QueryType;
 
 @Entity(name = "Publishers")
+// Publishers are read on every add-book flow but rarely change, so keep them for an hour
+@Cacheable
+@Cache(type = CacheType.CACHE, size = 1000, expiry = 3600000)
 @NamedNativeQuery(
 	name="ReturnPublisher",
 	query=	"SELECT * " +
@@ -15,8 +24,57 @@ import javax.persistence.*;
 				"FROM   PUBLISHERS ",
 		resultClass = Publishers.class
 )
+@NamedQuery(
+		name="ReturnPublisherSummariesFirstPage",
+		query = "SELECT NEW csulb.cecs323.model.PublisherSummary(p.name) FROM Publishers p ORDER BY p.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnPublisherSummariesPageAfter",
+		query = "SELECT NEW csulb.cecs323.model.PublisherSummary(p.name) FROM Publishers p " +
+				"WHERE p.name > :key ORDER BY p.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnPublisherSummariesPageBefore",
+		query = "SELECT NEW csulb.cecs323.model.PublisherSummary(p.name) FROM Publishers p " +
+				"WHERE p.name < :key ORDER BY p.name DESC",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+// The whole rows a page at a time, read when the catalog snapshot is loaded (see CatalogSnapshots)
+@NamedQuery(
+		name="ReturnPublishersFirstPage",
+		query = "SELECT p FROM Publishers p ORDER BY p.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnPublishersPageAfter",
+		query = "SELECT p FROM Publishers p WHERE p.name > :key ORDER BY p.name",
+		hints = @QueryHint(name = QueryHints.READ_ONLY, value = HintValues.TRUE)
+)
+@NamedQuery(
+		name="ReturnPublisherNames",
+		query = "SELECT p.name FROM Publishers p ORDER BY p.name"
+)
+// Looks a publisher up by name whichever key the model is mapped with (see CatalogKeys).  As a single
+// object query on the cache index it is answered from the shared cache when it can be.
+@CacheIndex(columnNames = "NAME")
+@NamedQuery(
+		name="ReturnPublisherByName",
+		query = "SELECT p FROM Publishers p WHERE p.name = :name",
+		hints = @QueryHint(name = QueryHints.QUERY_TYPE, value = QueryType.ReadObject)
+)
+// The publishers a chunk of book records refers to, read at once (see CatalogReferences)
+@NamedQuery(
+		name="ReturnPublishersByNames",
+		query = "SELECT p FROM Publishers p WHERE p.name IN :names"
+)
 public class Publishers {
 
+	// Only mapped in the surrogate key variant of the model, see META-INF/orm-surrogate-keys.xml
+	@Transient
+	private Long id;
+
 	@Id
 	@Column(nullable = false, length = 80)
 	private String name;
@@ -35,6 +93,16 @@ public class Publishers {
 		this.phone = phone;
 	}
 
+	public Long getId()
+	{
+		return this.id;
+	}
+
+	protected void setId(Long id)
+	{
+		this.id = id;
+	}
+
 	public String getName()
 	{
 		return this.name;
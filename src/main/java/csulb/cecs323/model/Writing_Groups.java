@@ -3,9 +3,14 @@ package csulb.cecs323.model;
 import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
+import javax.persistence.NamedQuery;
 
 @Entity(name = "WritingGroup")
 @DiscriminatorValue("WritingGroup")
+@NamedQuery(
+		name="ReturnAllWritingGroups",
+		query = "SELECT w FROM WritingGroup w"
+)
 public class Writing_Groups extends Authoring_Entities {
 
 	@Column(length = 80)
@@ -0,0 +1,8 @@
+package csulb.cecs323.model;
+
+/**
+ * How many books were published in a year, counted by the database.  Filled in by the
+ * CountBooksByYear constructor queries.
+ */
+public record YearBookCount(int year, long books) {
+}
@@ -0,0 +1,85 @@
+package csulb.cecs323.persistence;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happens in the EclipseLink shared (second level) cache, per entity class, so the cache
+ * sizes given in the @Cache annotations on the model can be checked against the real working set.
+ * <ul>
+ *     <li><b>hits</b> - a lookup by primary key was answered from the cache</li>
+ *     <li><b>misses</b> - a lookup by primary key had to go to the database</li>
+ *     <li><b>evictions</b> - an object was dropped because the cache was full</li>
+ * </ul>
+ * The hits and misses are reported by {@link CacheStatisticsProfiler}, the evictions by
+ * {@link CountingCacheIdentityMap}.  Both are installed by {@link CatalogSessionCustomizer}.
+ */
+public final class CacheStatistics {
+	private static final Map<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+	private CacheStatistics() {}
+
+	public static void recordHit(Class<?> entityClass) {
+		countersFor(entityClass).hits.increment();
+	}
+
+	public static void recordMiss(Class<?> entityClass) {
+		countersFor(entityClass).misses.increment();
+	}
+
+	public static void recordEvictions(Class<?> entityClass, long count) {
+		countersFor(entityClass).evictions.add(count);
+	}
+
+	public static long getHits(Class<?> entityClass) {
+		return countersFor(entityClass).hits.sum();
+	}
+
+	public static long getMisses(Class<?> entityClass) {
+		return countersFor(entityClass).misses.sum();
+	}
+
+	public static long getEvictions(Class<?> entityClass) {
+		return countersFor(entityClass).evictions.sum();
+	}
+
+	/**
+	 * @return The current counters of every entity class seen so far, keyed by the simple class name.
+	 */
+	public static Map<String, long[]> snapshot() {
+		Map<String, long[]> result = new TreeMap<>();
+		COUNTERS.forEach((name, counters) -> result.put(name,
+				new long[] {counters.hits.sum(), counters.misses.sum(), counters.evictions.sum()}));
+		return result;
+	}
+
+	public static void reset() {
+		COUNTERS.clear();
+	}
+
+	/**
+	 * @return A printable table of the counters and the hit rate of every entity class.
+	 */
+	public static String format() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-20s %10s %10s %10s %9s%n", "Entity", "Hits", "Misses", "Evictions", "Hit rate"));
+		snapshot().forEach((name, counts) -> {
+			long lookups = counts[0] + counts[1];
+			double hitRate = lookups == 0 ? 0 : 100.0 * counts[0] / lookups;
+			builder.append(String.format("%-20s %10d %10d %10d %8.1f%%%n", name, counts[0], counts[1], counts[2], hitRate));
+		});
+		return builder.toString();
+	}
+
+	private static Counters countersFor(Class<?> entityClass) {
+		return COUNTERS.computeIfAbsent(entityClass.getSimpleName(), name -> new Counters());
+	}
+
+	private static class Counters {
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder evictions = new LongAdder();
+	}
+}
@@ -0,0 +1,25 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+
+/**
+ * A session profiler that only listens for the cache hit and miss events EclipseLink raises when it
+ * looks an object up by primary key, and passes them on to {@link CacheStatistics}.
+ */
+public class CacheStatisticsProfiler extends SessionProfilerAdapter {
+
+	@Override
+	public void occurred(String operationName, DatabaseQuery query, AbstractSession session) {
+		if (query == null || query.getReferenceClass() == null) return;
+
+		if (SessionProfiler.CacheHits.equals(operationName)) {
+			CacheStatistics.recordHit(query.getReferenceClass());
+		}
+		else if (SessionProfiler.CacheMisses.equals(operationName)) {
+			CacheStatistics.recordMiss(query.getReferenceClass());
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.identitymaps.CacheIdentityMap;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.server.ConnectionPool;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+import java.util.Map;
+
+/**
+ * Sets up the catalog's EclipseLink session before it logs in.  Registered in persistence.xml with the
+ * eclipselink.session.customizer property, it
+ * <ul>
+ *     <li>applies the {@link RuntimeProfile} if the factory was created without it</li>
+ *     <li>swaps the LRU caches and connection pools for ones that count evictions and time waits</li>
+ *     <li>installs the query results cache, if it is wanted (see {@link QueryResultsCache})</li>
+ *     <li>installs the profiler behind {@link QueryStatistics} and {@link CacheStatistics}</li>
+ * </ul>
+ */
+public class CatalogSessionCustomizer implements SessionCustomizer {
+
+	@Override
+	public void customize(Session session) {
+		// entities cached with CacheType.CACHE get the same LRU map, but one that counts its evictions
+		for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+			if (descriptor.getIdentityMapClass() == CacheIdentityMap.class) {
+				descriptor.setIdentityMapClass(CountingCacheIdentityMap.class);
+			}
+		}
+
+		if (session instanceof ServerSession server) {
+			// a factory created straight from Persistence, rather than through PersistenceSettings, gets the
+			// selected profile here, while the session has still to log in
+			if (server.getProperty(RuntimeProfile.APPLIED) == null) RuntimeProfile.selected().applyTo(server);
+
+			// the pools have not connected yet, so they can still be swapped for ones that time their waits
+			for (Map.Entry<String, ConnectionPool> pool : server.getConnectionPools().entrySet()) {
+				if (pool.getValue().getClass() == ConnectionPool.class) {
+					pool.setValue(new TimedConnectionPool(pool.getValue(), server));
+				}
+			}
+			if (server.getReadConnectionPool() != null && server.getReadConnectionPool().getClass() == ConnectionPool.class) {
+				server.setReadConnectionPool(new TimedConnectionPool(server.getReadConnectionPool(), server));
+			}
+		}
+
+		if (QueryResultsCache.isEnabled()) session.getEventManager().addListener(new QueryResultsCache());
+
+		session.setProfiler(new QueryStatisticsProfiler());
+		QueryStatistics.startPeriodicDump();
+	}
+}
@@ -0,0 +1,26 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.identitymaps.CacheIdentityMap;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+
+/**
+ * The size-bounded, least recently used identity map that EclipseLink uses for CacheType.CACHE, which
+ * also counts how many objects it had to drop to stay within its size.
+ */
+public class CountingCacheIdentityMap extends CacheIdentityMap {
+
+	public CountingCacheIdentityMap(int size, ClassDescriptor descriptor, AbstractSession session, boolean isolated) {
+		super(size, descriptor, session, isolated);
+	}
+
+	@Override
+	protected void ensureFixedSize() {
+		int before = getSize();
+		super.ensureFixedSize();
+		int evicted = before - getSize();
+		if (evicted > 0 && descriptor != null) {
+			CacheStatistics.recordEvictions(descriptor.getJavaClass(), evicted);
+		}
+	}
+}
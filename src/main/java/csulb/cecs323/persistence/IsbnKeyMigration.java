@@ -0,0 +1,119 @@
+package csulb.cecs323.persistence;
+
+import csulb.cecs323.model.Isbn;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Version 2 of the schema: converts the ISBN key of the books table, in place, from the text it was
+ * typed as into the number of its canonical ISBN-13, as {@link csulb.cecs323.model.IsbnConverter} stores
+ * it.  {@link SchemaMigrator} applies it once when a persistent database created before the ISBNs were
+ * stored as numbers starts.  Every stored ISBN is read first: if any of them is not a valid ISBN, or two
+ * of them are the same book written differently, nothing is changed and they are all reported, to be
+ * corrected by hand before starting again.  A books table already keyed on numbers is left as it is.
+ * <p>
+ * The statements are written for Derby and for MySQL.  On Derby the conversion is one transaction, so a
+ * failure leaves the database as it was; MySQL commits each ALTER TABLE as it runs, so there a failure
+ * part way through the DDL leaves the table to be put right by hand.
+ */
+public class IsbnKeyMigration implements SchemaMigrator.Step {
+	public static final int VERSION = 2;
+
+	private static final int BATCH_SIZE = 1000;
+	/** The most problems listed when the ISBNs cannot be converted. */
+	private static final int MAX_PROBLEMS = 20;
+
+	@Override
+	public void apply(Connection connection) throws SQLException {
+		if (isbnType(connection) == Types.BIGINT) return;
+		boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+
+		Map<String, Long> isbns = readIsbns(connection);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("ALTER TABLE BOOKS ADD COLUMN ISBN_NUMBER BIGINT");
+			try (PreparedStatement update = connection.prepareStatement("UPDATE BOOKS SET ISBN_NUMBER = ? WHERE ISBN = ?")) {
+				int count = 0;
+				for (Map.Entry<String, Long> isbn : isbns.entrySet()) {
+					update.setLong(1, isbn.getValue());
+					update.setString(2, isbn.getKey());
+					update.addBatch();
+					if (++count % BATCH_SIZE == 0) update.executeBatch();
+				}
+				update.executeBatch();
+			}
+
+			if (mysql) {
+				statement.executeUpdate("ALTER TABLE BOOKS DROP PRIMARY KEY");
+				statement.executeUpdate("ALTER TABLE BOOKS DROP COLUMN ISBN");
+				statement.executeUpdate("ALTER TABLE BOOKS CHANGE COLUMN ISBN_NUMBER ISBN BIGINT NOT NULL");
+				statement.executeUpdate("ALTER TABLE BOOKS ADD PRIMARY KEY (ISBN)");
+			} else {
+				String primaryKey = null;
+				try (ResultSet keys = connection.getMetaData().getPrimaryKeys(null, null, "BOOKS")) {
+					if (keys.next()) primaryKey = keys.getString("PK_NAME");
+				}
+				if (primaryKey != null) statement.executeUpdate("ALTER TABLE BOOKS DROP CONSTRAINT " + primaryKey);
+				statement.executeUpdate("ALTER TABLE BOOKS DROP COLUMN ISBN");
+				statement.executeUpdate("RENAME COLUMN BOOKS.ISBN_NUMBER TO ISBN");
+				statement.executeUpdate("ALTER TABLE BOOKS ALTER COLUMN ISBN NOT NULL");
+				statement.executeUpdate("ALTER TABLE BOOKS ADD CONSTRAINT BOOKS_PK PRIMARY KEY (ISBN)");
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ISBNs stored as numbers";
+	}
+
+	private static int isbnType(Connection connection) throws SQLException {
+		try (ResultSet columns = connection.getMetaData().getColumns(null, null, "BOOKS", "ISBN")) {
+			if (!columns.next()) throw new SQLException("There is no BOOKS.ISBN column to convert.");
+			return columns.getInt("DATA_TYPE");
+		}
+	}
+
+	/**
+	 * @return Every stored ISBN with the number it converts to.
+	 * @throws IllegalStateException listing the ISBNs that are invalid or the same as another, if any are.
+	 */
+	private static Map<String, Long> readIsbns(Connection connection) throws SQLException {
+		Map<String, Long> isbns = new HashMap<>();
+		Map<Long, String> books = new HashMap<>();
+		List<String> problems = new ArrayList<>();
+		int problemCount = 0;
+
+		try (Statement statement = connection.createStatement();
+		     ResultSet rows = statement.executeQuery("SELECT ISBN FROM BOOKS")) {
+			while (rows.next()) {
+				String isbn = rows.getString(1);
+				String problem = null;
+				try {
+					long number = Isbn.parse(isbn);
+					String same = books.putIfAbsent(number, isbn);
+					if (same != null) problem = "'" + isbn + "' is the same book as '" + same + "'";
+					else isbns.put(isbn, number);
+				} catch (IllegalArgumentException e) {
+					problem = e.getMessage();
+				}
+				if (problem != null && problemCount++ < MAX_PROBLEMS) problems.add(problem);
+			}
+		}
+
+		if (problemCount > 0) {
+			throw new IllegalStateException(problemCount + " of the stored ISBNs cannot be converted, nothing was changed: "
+					+ String.join("; ", problems) + (problemCount > problems.size() ? "; ..." : ""));
+		}
+		return isbns;
+	}
+}
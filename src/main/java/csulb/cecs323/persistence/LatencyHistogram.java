@@ -0,0 +1,85 @@
+package csulb.cecs323.persistence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of durations, for percentiles that are cheap enough to record on every query.
+ * Durations are kept in logarithmic buckets: each power of two of nanoseconds is split into eight
+ * linear buckets, so a percentile is accurate to within about 12% while the whole histogram is a fixed
+ * few hundred counters, however many durations are recorded.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param nanos  A duration in nanoseconds; negative durations count as zero.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketOf(value));
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public long getMeanNanos() {
+		long n = count.sum();
+		return n == 0 ? 0 : total.sum() / n;
+	}
+
+	/**
+	 * @param percentile  Between 0 and 100.
+	 * @return            The upper bound of the bucket holding that percentile, or 0 if nothing was recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long n = count.sum();
+		if (n == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts.get(bucket);
+			if (seen >= rank) return Math.min(upperBoundOf(bucket), max.get());
+		}
+		return max.get();
+	}
+
+	public void reset() {
+		for (int bucket = 0; bucket < BUCKETS; bucket++) counts.set(bucket, 0);
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS) return bucket;
+		int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long width = 1L << (magnitude - SUB_BUCKET_BITS);
+		return (1L << magnitude) + (subBucket + 1) * width - 1;
+	}
+}
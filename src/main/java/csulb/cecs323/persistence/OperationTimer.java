@@ -0,0 +1,54 @@
+package csulb.cecs323.persistence;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The call count, rows and latency histogram of one named query, kind of query or timed operation.
+ */
+public class OperationTimer implements OperationTimerMXBean {
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder rows = new LongAdder();
+
+	public void record(long nanos, long rowCount) {
+		latency.record(nanos);
+		rows.add(rowCount);
+	}
+
+	@Override
+	public long getCount() {
+		return latency.getCount();
+	}
+
+	@Override
+	public long getRows() {
+		return rows.sum();
+	}
+
+	@Override
+	public double getMeanMillis() {
+		return latency.getMeanNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP50Millis() {
+		return latency.getPercentileNanos(50) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP99Millis() {
+		return latency.getPercentileNanos(99) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return latency.getMaxNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public void reset() {
+		latency.reset();
+		rows.reset();
+	}
+}
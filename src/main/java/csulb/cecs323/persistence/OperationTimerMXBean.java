@@ -0,0 +1,23 @@
+package csulb.cecs323.persistence;
+
+/**
+ * The figures published over JMX for one named query, kind of query or timed operation.
+ */
+public interface OperationTimerMXBean {
+	long getCount();
+
+	/**
+	 * @return The rows returned by a query, or changed by a modify query, summed over every call.
+	 */
+	long getRows();
+
+	double getMeanMillis();
+
+	double getP50Millis();
+
+	double getP99Millis();
+
+	double getMaxMillis();
+
+	void reset();
+}
@@ -0,0 +1,110 @@
+package csulb.cecs323.persistence;
+
+import csulb.cecs323.model.Books;
+import org.eclipse.persistence.internal.weaving.PersistenceWeaved;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.util.Map;
+
+/**
+ * Creates the EntityManagerFactory for the application, applying the startup settings chosen with
+ * system properties on top of persistence.xml.
+ * <p>
+ * <b>jpabooks.schema</b> picks how the schema is treated at startup:
+ * <ul>
+ *     <li><b>recreate</b> (the default) - drop and create the tables and load sql/seed-data.sql on every
+ *         start, as persistence.xml says.  Convenient while developing; all data is lost.</li>
+ *     <li><b>persistent</b> - keep the existing tables and data.  The schema is created and seeded only the
+ *         first time, later versioned migrations are applied once each by {@link SchemaMigrator}, and the
+ *         tables are checked against the entity model by {@link SchemaValidator} before the application
+ *         starts.</li>
+ * </ul>
+ * <b>jpabooks.keys</b> picks how the model is keyed:
+ * <ul>
+ *     <li><b>natural</b> (the default) - publishers and authoring entities are keyed on their names.</li>
+ *     <li><b>surrogate</b> - they are keyed on numeric IDs, as mapped in META-INF/orm-surrogate-keys.xml,
+ *         with the names kept as unique business keys.  Look them up through CatalogKeys, which works with
+ *         either model.  {@link SurrogateKeyMigration} converts an existing natural key database.</li>
+ * </ul>
+ * <b>jpabooks.profile</b> picks the database and its pool and batch settings, see {@link RuntimeProfile}.
+ * <p>
+ * <b>jpabooks.queryCache</b> keeps the results of the list and lookup queries in memory, see
+ * {@link QueryResultsCache}.
+ * <p>
+ * The entities are woven at build time by the static-weaving profile of the pom.  When the classes on
+ * the classpath have been woven, EclipseLink is told so, which gives real lazy loading of the to-one
+ * associations, attribute level change tracking and fetch groups; a build with -DskipWeaving runs on
+ * the plain classes as before.
+ */
+public final class PersistenceSettings {
+	public static final String PERSISTENCE_UNIT = "JPABooksProject";
+
+	private static final String SCHEMA_ACTION = "javax.persistence.schema-generation.database.action";
+	private static final String WEAVING = "eclipselink.weaving";
+	private static final String LOAD_SCRIPT = "javax.persistence.sql-load-script-source";
+
+	private static final String SURROGATE_KEY_MAPPINGS = "META-INF/orm-surrogate-keys.xml";
+	private static final String NATURAL_KEY_SEED = "sql/seed-data.sql";
+	private static final String SURROGATE_KEY_SEED = "sql/seed-data-surrogate-keys.sql";
+
+	private PersistenceSettings() {}
+
+	public static boolean isPersistentSchema() {
+		return System.getProperty("jpabooks.schema", "recreate").equalsIgnoreCase("persistent");
+	}
+
+	public static boolean isSurrogateKeys() {
+		return System.getProperty("jpabooks.keys", "natural").equalsIgnoreCase("surrogate");
+	}
+
+	/**
+	 * @return Whether the entity classes were woven by the build.
+	 */
+	public static boolean isStaticallyWoven() {
+		return PersistenceWeaved.class.isAssignableFrom(Books.class);
+	}
+
+	public static EntityManagerFactory createEntityManagerFactory() {
+		return createEntityManagerFactory(Map.of());
+	}
+
+	/**
+	 * @param extra  Further persistence unit properties for this factory, such as the pool size.
+	 */
+	public static EntityManagerFactory createEntityManagerFactory(Map<String, ?> extra) {
+		return createEntityManagerFactory(RuntimeProfile.selected(), extra);
+	}
+
+	/**
+	 * @param profile  The profile to run with, whichever one jpabooks.profile selects.
+	 * @param extra    Further persistence unit properties for this factory, over those of the profile.
+	 */
+	public static EntityManagerFactory createEntityManagerFactory(RuntimeProfile profile, Map<String, ?> extra) {
+		Map<String, Object> properties = profile.withProperties(extra);
+		if (isStaticallyWoven()) properties.putIfAbsent(WEAVING, "static");
+		if (isSurrogateKeys()) {
+			// the mapping file is applied over the annotations of the entity classes
+			properties.put("eclipselink.metadata-source", "XML");
+			properties.put("eclipselink.metadata-source.xml.file", SURROGATE_KEY_MAPPINGS);
+			properties.put(LOAD_SCRIPT, SURROGATE_KEY_SEED);
+		}
+		if (!isPersistentSchema()) return Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, properties);
+
+		// never touch the tables while starting up; the migrator creates them if they are missing, and
+		// EclipseLink would run the load script even with schema generation off, so it is switched off too
+		properties.put(SCHEMA_ACTION, "none");
+		properties.put(LOAD_SCRIPT, "");
+		EntityManagerFactory factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, properties);
+		try {
+			String migrations = isSurrogateKeys() ? "sql/migrations-surrogate-keys" : "sql/migrations";
+			new SchemaMigrator(factory, isSurrogateKeys() ? SURROGATE_KEY_SEED : NATURAL_KEY_SEED, migrations,
+					Map.of(IsbnKeyMigration.VERSION, new IsbnKeyMigration())).migrate();
+			new SchemaValidator(factory).validate();
+		} catch (RuntimeException e) {
+			factory.close();
+			throw e;
+		}
+		return factory;
+	}
+}
@@ -0,0 +1,65 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.queries.QueryResultsCachePolicy;
+import org.eclipse.persistence.queries.ReadQuery;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+
+import java.util.List;
+
+/**
+ * Caches the results of the list and lookup queries every menu runs, ReturnAllPublishers,
+ * ReturnAllAuthors, ReturnAllBooks and ReturnPublisher, so that showing the same list again does not
+ * go back to the database.  Off unless -Djpabooks.queryCache=SIZE is given, the number of results
+ * (one per set of parameters) kept for each query; -Djpabooks.queryCache.expiry sets how many seconds
+ * a result is kept for (300 by default).
+ * <p>
+ * EclipseLink drops the cached results of a query whenever an entity of its type, or of a subclass,
+ * is inserted, updated or deleted by a commit or a JPQL bulk update, so our own writes are never
+ * hidden by the cache.  Writes made behind EclipseLink's back with plain JDBC or native SQL are, until
+ * the results expire.  A transaction that has persisted or removed entities but not committed yet
+ * also bypasses the cache, so that it sees its own changes as it would without it.
+ */
+public class QueryResultsCache extends SessionEventAdapter {
+	public static final List<String> CACHED_QUERIES = List.of("ReturnAllPublishers", "ReturnAllAuthors", "ReturnAllBooks", "ReturnPublisher");
+
+	public static boolean isEnabled() {
+		return getSize() > 0;
+	}
+
+	public static int getSize() {
+		return Integer.getInteger("jpabooks.queryCache", 0);
+	}
+
+	public static long getExpiryMillis() {
+		return Long.getLong("jpabooks.queryCache.expiry", 300) * 1000;
+	}
+
+	/**
+	 * The named queries only exist once the session has logged in and processed the metadata.
+	 */
+	@Override
+	public void postLogin(SessionEvent event) {
+		for (String name : CACHED_QUERIES) {
+			if (event.getSession().getQuery(name) instanceof ReadQuery query) {
+				query.setQueryResultsCachePolicy(new QueryResultsCachePolicy(new TimeToLiveCacheInvalidationPolicy(getExpiryMillis()), getSize()));
+			}
+		}
+	}
+
+	@Override
+	public void preExecuteQuery(SessionEvent event) {
+		if (event.getQuery() instanceof ReadQuery query && query.shouldCacheQueryResults()
+				&& event.getSession() instanceof UnitOfWorkImpl unitOfWork && hasUncommittedWrites(unitOfWork)) {
+			// the cached results are only dropped when the changes are committed; until then read them afresh
+			query.clearQueryResults(unitOfWork);
+		}
+	}
+
+	private static boolean hasUncommittedWrites(UnitOfWorkImpl unitOfWork) {
+		return unitOfWork.hasNewObjects() || unitOfWork.hasUnregisteredNewObjects() || unitOfWork.hasDeletedObjects()
+				|| unitOfWork.wasTransactionBegunPrematurely() || unitOfWork.wasNonObjectLevelModifyQueryExecuted();
+	}
+}
@@ -0,0 +1,139 @@
+package csulb.cecs323.persistence;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the persistence layer spends its time on, per named query (ReturnAllBooks, ReturnPublisher, ...)
+ * and per kind of unnamed query or operation (finds, inserts, lazy loads), with the call count, rows
+ * returned and a latency histogram of each.  Two more timers cover the whole persistence layer:
+ * <ul>
+ *     <li><b>ConnectionWait</b> - time spent waiting for a connection from the pool</li>
+ *     <li><b>Commit</b> - time taken to commit a unit of work, flushing the changes included</li>
+ * </ul>
+ * The figures are recorded by {@link QueryStatisticsProfiler} and {@link TimedConnectionPool}, installed
+ * by {@link CatalogSessionCustomizer}.  Every timer is published as an MXBean named
+ * csulb.cecs323:type=Query,name=... or csulb.cecs323:type=Operation,name=..., for jconsole or any other
+ * JMX client.  Setting -Djpabooks.monitor.dump=FILE also appends the whole report to that file every
+ * -Djpabooks.monitor.interval seconds (60 by default).
+ */
+public final class QueryStatistics {
+	public static final String CONNECTION_WAIT = "ConnectionWait";
+	public static final String COMMIT = "Commit";
+
+	private static final String DOMAIN = "csulb.cecs323";
+	private static final Map<String, OperationTimer> QUERIES = new ConcurrentHashMap<>();
+	private static final Map<String, OperationTimer> OPERATIONS = new ConcurrentHashMap<>();
+
+	private static ScheduledExecutorService dumper;
+
+	private QueryStatistics() {}
+
+	/**
+	 * @param query  The name of the query, or a description of an unnamed one.
+	 * @param rows   The rows it returned or changed.
+	 */
+	public static void recordQuery(String query, long nanos, long rows) {
+		timerFor(QUERIES, "Query", query).record(nanos, rows);
+	}
+
+	public static void recordOperation(String operation, long nanos) {
+		timerFor(OPERATIONS, "Operation", operation).record(nanos, 0);
+	}
+
+	public static OperationTimer getQuery(String query) {
+		return timerFor(QUERIES, "Query", query);
+	}
+
+	public static OperationTimer getOperation(String operation) {
+		return timerFor(OPERATIONS, "Operation", operation);
+	}
+
+	public static void reset() {
+		QUERIES.values().forEach(OperationTimer::reset);
+		OPERATIONS.values().forEach(OperationTimer::reset);
+	}
+
+	/**
+	 * @return A printable table of every query and operation timed so far, slowest p99 first.
+	 */
+	public static String format() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-40s %9s %10s %10s %10s %10s%n", "Query / operation", "Calls", "Rows", "p50 ms", "p99 ms", "Max ms"));
+		appendRows(builder, new TreeMap<>(QUERIES));
+		appendRows(builder, new TreeMap<>(OPERATIONS));
+		return builder.toString();
+	}
+
+	/**
+	 * Start appending the report to the file named by -Djpabooks.monitor.dump, if it is set.  Does
+	 * nothing if the dump is already running.
+	 */
+	public static synchronized void startPeriodicDump() {
+		String file = System.getProperty("jpabooks.monitor.dump");
+		if (file == null || dumper != null) return;
+		long interval = Long.getLong("jpabooks.monitor.interval", 60);
+
+		dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "query-statistics-dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> dump(Path.of(file)), interval, interval, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Append the report to the file, headed by the time it was taken.
+	 */
+	public static void dump(Path file) {
+		String report = "==== " + LocalDateTime.now() + " ====" + System.lineSeparator() + format() + System.lineSeparator();
+		try {
+			Files.writeString(file, report, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void appendRows(StringBuilder builder, Map<String, OperationTimer> timers) {
+		timers.entrySet().stream()
+				.filter(entry -> entry.getValue().getCount() > 0)
+				.sorted((a, b) -> Double.compare(b.getValue().getP99Millis(), a.getValue().getP99Millis()))
+				.forEach(entry -> {
+					OperationTimer timer = entry.getValue();
+					builder.append(String.format("%-40s %9d %10d %10.3f %10.3f %10.3f%n", entry.getKey(), timer.getCount(),
+							timer.getRows(), timer.getP50Millis(), timer.getP99Millis(), timer.getMaxMillis()));
+				});
+	}
+
+	private static OperationTimer timerFor(Map<String, OperationTimer> timers, String type, String name) {
+		OperationTimer timer = timers.get(name);
+		if (timer != null) return timer;
+		return timers.computeIfAbsent(name, key -> register(type, key, new OperationTimer()));
+	}
+
+	private static OperationTimer register(String type, String name, OperationTimer timer) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+			if (!server.isRegistered(objectName)) server.registerMBean(timer, objectName);
+		} catch (JMException e) {
+			// the figures are still recorded and reported, only not over JMX
+		}
+		return timer;
+	}
+}
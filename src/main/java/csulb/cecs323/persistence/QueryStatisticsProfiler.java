@@ -0,0 +1,74 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.SessionProfiler;
+
+import java.util.Collection;
+
+/**
+ * Adds to the cache hit and miss counting the time taken by every query and unit of work commit,
+ * passing them on to {@link QueryStatistics}.
+ */
+public class QueryStatisticsProfiler extends CacheStatisticsProfiler {
+	// a query run in a unit of work is run again by its parent session, and should only be counted once
+	private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+	private final ThreadLocal<long[]> commitStart = ThreadLocal.withInitial(() -> new long[1]);
+
+	@Override
+	public Object profileExecutionOfQuery(DatabaseQuery query, Record row, AbstractSession session) {
+		int[] nesting = depth.get();
+		if (nesting[0]++ > 0) {
+			try {
+				return session.internalExecuteQuery(query, (AbstractRecord) row);
+			} finally {
+				nesting[0]--;
+			}
+		}
+
+		long start = System.nanoTime();
+		Object result = null;
+		try {
+			result = session.internalExecuteQuery(query, (AbstractRecord) row);
+			return result;
+		} finally {
+			nesting[0]--;
+			QueryStatistics.recordQuery(describe(query), System.nanoTime() - start, rowsIn(result));
+		}
+	}
+
+	@Override
+	public void startOperationProfile(String operationName) {
+		if (SessionProfiler.UowCommit.equals(operationName)) commitStart.get()[0] = System.nanoTime();
+	}
+
+	@Override
+	public void endOperationProfile(String operationName) {
+		if (SessionProfiler.UowCommit.equals(operationName)) {
+			long[] start = commitStart.get();
+			if (start[0] != 0) QueryStatistics.recordOperation(QueryStatistics.COMMIT, System.nanoTime() - start[0]);
+			start[0] = 0;
+		}
+	}
+
+	/**
+	 * Named queries are known by their name, anything else (finds, lazy loads, inserts) by the kind of
+	 * query and the entity it is for, such as "ReadObjectQuery Books".
+	 */
+	private static String describe(DatabaseQuery query) {
+		String name = query.getName();
+		if (name != null && !name.isEmpty()) return name;
+
+		Class<?> reference = query.getReferenceClass();
+		return query.getClass().getSimpleName() + (reference == null ? "" : " " + reference.getSimpleName());
+	}
+
+	private static long rowsIn(Object result) {
+		if (result == null) return 0;
+		if (result instanceof Collection<?> collection) return collection.size();
+		if (result instanceof Integer count) return count;
+		return 1;
+	}
+}
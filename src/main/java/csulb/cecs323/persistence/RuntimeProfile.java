@@ -0,0 +1,154 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.sessions.DatabaseLogin;
+import org.eclipse.persistence.sessions.server.ConnectionPool;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The database the application runs against, with the connection pool, JDBC batch and statement cache
+ * settings that suit it.  Chosen at startup with -Djpabooks.profile=NAME (or the --profile NAME flag):
+ * <ul>
+ *     <li><b>default</b> - persistence.xml as it is: the on-disk Derby database under database/ with
+ *         Derby's own settings.</li>
+ *     <li><b>memory</b> - a Derby database held in memory, gone when the JVM exits.  For tests and
+ *         benchmarks.</li>
+ *     <li><b>derby</b> - the same on-disk Derby database as the default, tuned for larger catalogs: a
+ *         bigger page cache, log buffer and statement cache, and cached prepared statements.</li>
+ *     <li><b>mysql</b> - a MySQL server, at jpabooks.mysql.url (a local JPABooksProject database by
+ *         default) as jpabooks.mysql.user with jpabooks.mysql.password.</li>
+ * </ul>
+ * A profile is a set of persistence unit properties laid over persistence.xml, so settings given
+ * explicitly when the factory is created (a pool size, a database URL) still win over it.  Derby's own
+ * settings are system properties, read when the Derby engine boots; those set on the command line are
+ * left alone.
+ */
+public enum RuntimeProfile {
+	DEFAULT(Map.of(), Map.of()),
+
+	MEMORY(Map.of(
+			"javax.persistence.jdbc.url", "jdbc:derby:memory:JPABooksProject;create=true",
+			"eclipselink.connection-pool.default.initial", "1",
+			"eclipselink.connection-pool.default.min", "1",
+			"eclipselink.connection-pool.default.max", String.valueOf(cores() * 2),
+			"eclipselink.jdbc.batch-writing.size", "1000",
+			"eclipselink.jdbc.cache-statements", "true",
+			"eclipselink.jdbc.cache-statements.size", "100"),
+			Map.of()),
+
+	DERBY(Map.of(
+			"eclipselink.connection-pool.default.initial", "2",
+			"eclipselink.connection-pool.default.min", "2",
+			"eclipselink.connection-pool.default.max", String.valueOf(cores() * 2),
+			"eclipselink.jdbc.batch-writing.size", "1000",
+			"eclipselink.jdbc.cache-statements", "true",
+			"eclipselink.jdbc.cache-statements.size", "200"),
+			Map.of(
+					// 4 KB pages, so about 64 MB of table and index pages kept in memory rather than 4 MB
+					"derby.storage.pageCacheSize", "16000",
+					// fewer, larger writes of the transaction log for the bulk imports
+					"derby.storage.logBufferSize", "262144",
+					// compiled statements kept for reuse, 100 by default
+					"derby.language.statementCacheSize", "500")),
+
+	MYSQL(Map.of(
+			"eclipselink.target-database", "MySQL",
+			"javax.persistence.jdbc.driver", "com.mysql.cj.jdbc.Driver",
+			"javax.persistence.jdbc.url", System.getProperty("jpabooks.mysql.url",
+					"jdbc:mysql://localhost:3306/JPABooksProject?serverTimezone=UTC&createDatabaseIfNotExist=true&rewriteBatchedStatements=true"),
+			"javax.persistence.jdbc.user", System.getProperty("jpabooks.mysql.user", "app"),
+			"javax.persistence.jdbc.password", System.getProperty("jpabooks.mysql.password", "app"),
+			"eclipselink.connection-pool.default.initial", "4",
+			"eclipselink.connection-pool.default.min", "4",
+			"eclipselink.connection-pool.default.max", "32",
+			"eclipselink.jdbc.batch-writing.size", "500",
+			"eclipselink.jdbc.cache-statements", "true"),
+			Map.of());
+
+	public static final String PROPERTY = "jpabooks.profile";
+
+	/** Set in the properties of a factory the profile was given to, so the session customizer leaves it be. */
+	static final String APPLIED = "jpabooks.profile.applied";
+
+	private final Map<String, String> properties;
+	private final Map<String, String> derbySettings;
+
+	RuntimeProfile(Map<String, String> properties, Map<String, String> derbySettings) {
+		this.properties = properties;
+		this.derbySettings = derbySettings;
+	}
+
+	/**
+	 * @return The profile named by the jpabooks.profile system property, or the default one.
+	 */
+	public static RuntimeProfile selected() {
+		return named(System.getProperty(PROPERTY, "default"));
+	}
+
+	public static RuntimeProfile named(String name) {
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown profile '" + name + "', expected default, memory, derby or mysql.");
+		}
+	}
+
+	public String getName() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @param extra  The properties given explicitly for this factory, which take precedence.
+	 * @return       The persistence unit properties to create the factory with.
+	 */
+	Map<String, Object> withProperties(Map<String, ?> extra) {
+		applyDerbySettings();
+		Map<String, Object> merged = new HashMap<>(properties);
+		merged.putAll(extra);
+		merged.put(APPLIED, getName());
+		return merged;
+	}
+
+	/**
+	 * Apply the profile to a session whose factory was created without it, straight from
+	 * Persistence.createEntityManagerFactory.  Called by the session customizer before the session logs in.
+	 */
+	void applyTo(ServerSession session) {
+		applyDerbySettings();
+		DatabaseLogin login = session.getLogin();
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			String value = property.getValue();
+			switch (property.getKey()) {
+				case "javax.persistence.jdbc.url" -> login.setURL(value);
+				case "javax.persistence.jdbc.driver" -> login.setDriverClassName(value);
+				case "javax.persistence.jdbc.user" -> login.setUserName(value);
+				case "javax.persistence.jdbc.password" -> login.setPassword(value);
+				case "eclipselink.target-database" -> login.setPlatformClassName("org.eclipse.persistence.platform.database." + value + "Platform");
+				case "eclipselink.jdbc.batch-writing.size" -> login.setMaxBatchWritingSize(Integer.parseInt(value));
+				case "eclipselink.jdbc.cache-statements" -> login.setShouldCacheAllStatements(Boolean.parseBoolean(value));
+				case "eclipselink.jdbc.cache-statements.size" -> login.setStatementCacheSize(Integer.parseInt(value));
+				case "eclipselink.connection-pool.default.initial" -> defaultPool(session).setInitialNumberOfConnections(Integer.parseInt(value));
+				case "eclipselink.connection-pool.default.min" -> defaultPool(session).setMinNumberOfConnections(Integer.parseInt(value));
+				case "eclipselink.connection-pool.default.max" -> defaultPool(session).setMaxNumberOfConnections(Integer.parseInt(value));
+				default -> throw new IllegalStateException("No session setting for " + property.getKey());
+			}
+		}
+	}
+
+	private void applyDerbySettings() {
+		for (Map.Entry<String, String> setting : derbySettings.entrySet()) {
+			if (System.getProperty(setting.getKey()) == null) System.setProperty(setting.getKey(), setting.getValue());
+		}
+	}
+
+	private static ConnectionPool defaultPool(ServerSession session) {
+		return session.getDefaultConnectionPool();
+	}
+
+	private static int cores() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+}
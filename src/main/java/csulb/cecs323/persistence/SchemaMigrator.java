@@ -0,0 +1,213 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.tools.schemaframework.SchemaManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Brings a persistent database schema up to date, applying each change exactly once.
+ * <p>
+ * The versions applied so far are recorded in the SCHEMA_VERSION table.  Version 1 is the baseline: on
+ * an empty database the tables are generated from the entity metadata and the seed data script is
+ * loaded, which is the only time the seed data is ever loaded.  Every later version N is the script
+ * V{N}.sql in the migrations directory on the classpath (sql/migrations for the natural key model,
+ * sql/migrations-surrogate-keys for the surrogate key one), written like the seed data script (one
+ * statement per line, no semicolons; lines starting with -- are comments).  Versions are applied in
+ * order, each in its own transaction, and the first missing script ends the run.  A change that SQL
+ * alone cannot make is written as a {@link Step} instead, given to the constructor under its version
+ * number and applied in its turn like a script.
+ * <p>
+ * A script changes a database created from an older entity model into the current one, so a baseline
+ * generated from the current model already holds its changes: the scripts there are recorded as
+ * applied without being run.  Version 2 is the {@link IsbnKeyMigration} step, for both models.
+ */
+public class SchemaMigrator {
+	private static final String VERSION_TABLE = "SCHEMA_VERSION";
+
+	private final EntityManagerFactory factory;
+	private final String seedScript;
+	private final String migrations;
+	private final Map<Integer, Step> steps;
+
+	/**
+	 * @param factory     The factory to run the migrations through.
+	 * @param seedScript  The classpath script loaded into a newly created schema.
+	 * @param migrations  The classpath directory holding the V{N}.sql scripts.
+	 */
+	public SchemaMigrator(EntityManagerFactory factory, String seedScript, String migrations) {
+		this(factory, seedScript, migrations, Map.of());
+	}
+
+	/**
+	 * @param steps  The versions written in Java, by version number; no script may have the same number.
+	 */
+	public SchemaMigrator(EntityManagerFactory factory, String seedScript, String migrations, Map<Integer, Step> steps) {
+		this.factory = factory;
+		this.seedScript = seedScript;
+		this.migrations = migrations;
+		this.steps = steps;
+	}
+
+	/**
+	 * @return The schema version after migrating.
+	 */
+	public int migrate() {
+		int version = runInTransaction(connection -> {
+			ensureVersionTable(connection);
+			return currentVersion(connection);
+		});
+
+		boolean generated = false;
+		if (version == 0) {
+			generated = createBaseline();
+			version = 1;
+		}
+
+		while (true) {
+			int next = version + 1;
+			String script = migrations + "/V" + next + ".sql";
+			Step step = steps.get(next);
+			boolean hasScript = getClass().getClassLoader().getResource(script) != null;
+			if (step == null && !hasScript) return version;
+			if (step != null && hasScript) throw new IllegalStateException("Version " + next + " is both " + script + " and " + step);
+
+			String description = step != null ? step.toString() : script;
+			boolean inBaseline = generated;
+			runInTransaction(connection -> {
+				if (inBaseline) {
+					recordVersion(connection, next, description + " (in the generated baseline)");
+				} else {
+					if (step != null) step.apply(connection);
+					else applyScript(connection, getClass().getClassLoader().getResourceAsStream(script), script);
+					recordVersion(connection, next, description);
+				}
+				return null;
+			});
+			version = next;
+		}
+	}
+
+	/**
+	 * @return Whether the tables were generated from the entity model, rather than already there.
+	 */
+	private boolean createBaseline() {
+		boolean tablesExist = runInTransaction(connection -> tableExists(connection, "BOOKS"));
+
+		if (!tablesExist) {
+			// let EclipseLink create the tables, constraints and indexes from the entity model
+			new SchemaManager(JpaHelper.getDatabaseSession(factory)).createDefaultTables(true);
+		}
+
+		runInTransaction(connection -> {
+			if (!tablesExist) {
+				// the seed data is loaded this once, in the same transaction that records the baseline
+				InputStream seed = getClass().getClassLoader().getResourceAsStream(seedScript);
+				if (seed != null) applyScript(connection, seed, seedScript);
+			}
+			recordVersion(connection, 1, tablesExist ? "baseline (existing tables)" : "baseline (generated from entities)");
+			return null;
+		});
+		return !tablesExist;
+	}
+
+	private static void ensureVersionTable(Connection connection) throws SQLException {
+		if (tableExists(connection, VERSION_TABLE)) return;
+		try (Statement statement = connection.createStatement()) {
+			statement.executeUpdate("CREATE TABLE " + VERSION_TABLE +
+					" (VERSION INTEGER NOT NULL PRIMARY KEY, DESCRIPTION VARCHAR(200), APPLIED_ON TIMESTAMP)");
+		}
+	}
+
+	private static int currentVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+		     ResultSet rows = statement.executeQuery("SELECT MAX(VERSION) FROM " + VERSION_TABLE)) {
+			return rows.next() ? rows.getInt(1) : 0;
+		}
+	}
+
+	private static void recordVersion(Connection connection, int version, String description) throws SQLException {
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO " + VERSION_TABLE + " (VERSION, DESCRIPTION, APPLIED_ON) VALUES (?, ?, ?)")) {
+			insert.setInt(1, version);
+			insert.setString(2, description);
+			insert.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+			insert.executeUpdate();
+		}
+	}
+
+	static boolean tableExists(Connection connection, String table) throws SQLException {
+		DatabaseMetaData metaData = connection.getMetaData();
+		try (ResultSet tables = metaData.getTables(null, null, table, new String[] {"TABLE"})) {
+			if (tables.next()) return true;
+		}
+		// some databases keep unquoted names in lower case
+		try (ResultSet tables = metaData.getTables(null, null, table.toLowerCase(), new String[] {"TABLE"})) {
+			return tables.next();
+		}
+	}
+
+	private static void applyScript(Connection connection, InputStream in, String script) throws SQLException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		     Statement statement = connection.createStatement()) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				String sql = line.trim();
+				if (sql.isEmpty() || sql.startsWith("--")) continue;
+				try {
+					statement.execute(sql);
+				} catch (SQLException e) {
+					throw new SQLException(script + " line " + lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private <T> T runInTransaction(SqlWork<T> work) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			T result = work.run(manager.unwrap(Connection.class));
+			manager.getTransaction().commit();
+			return result;
+		} catch (SQLException e) {
+			throw new IllegalStateException("Schema migration failed: " + e.getMessage(), e);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	/**
+	 * A version of the schema written in Java.  It runs in the transaction that records it, and its
+	 * toString is recorded as the version's description.
+	 */
+	@FunctionalInterface
+	public interface Step {
+		void apply(Connection connection) throws SQLException;
+	}
+
+	@FunctionalInterface
+	private interface SqlWork<T> {
+		T run(Connection connection) throws SQLException;
+	}
+}
@@ -0,0 +1,118 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.internal.helper.DatabaseField;
+import org.eclipse.persistence.internal.helper.DatabaseTable;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.mappings.DatabaseMapping;
+import org.eclipse.persistence.mappings.ManyToManyMapping;
+import org.eclipse.persistence.sessions.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Checks that every table and column the entity model maps to exists in the database, so that a
+ * persistent schema which has fallen behind the model is caught at startup rather than on the first
+ * query that touches the missing column.
+ */
+public class SchemaValidator {
+	private final EntityManagerFactory factory;
+
+	public SchemaValidator(EntityManagerFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * @throws IllegalStateException listing every missing table and column, if there are any.
+	 */
+	public void validate() {
+		List<String> problems = findProblems();
+		if (!problems.isEmpty()) {
+			throw new IllegalStateException("The database schema does not match the entity model: " + String.join("; ", problems));
+		}
+	}
+
+	/**
+	 * @return A description of each table or column the model expects but the database lacks.
+	 */
+	public List<String> findProblems() {
+		Map<String, Set<String>> expected = expectedColumns();
+		List<String> problems = new ArrayList<>();
+
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			Connection connection = manager.unwrap(Connection.class);
+
+			for (Map.Entry<String, Set<String>> table : expected.entrySet()) {
+				Set<String> actual = actualColumns(connection, table.getKey());
+				if (actual.isEmpty()) {
+					problems.add("missing table " + table.getKey());
+					continue;
+				}
+				for (String column : table.getValue()) {
+					if (!actual.contains(column)) problems.add("missing column " + table.getKey() + "." + column);
+				}
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Could not read the database schema: " + e.getMessage(), e);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+
+		return problems;
+	}
+
+	/**
+	 * The tables and columns of every entity, and of the join tables of their many-to-many mappings, in
+	 * upper case.
+	 */
+	private Map<String, Set<String>> expectedColumns() {
+		Session session = JpaHelper.getServerSession(factory);
+		Map<String, Set<String>> expected = new TreeMap<>();
+
+		for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+			for (DatabaseTable table : descriptor.getTables()) {
+				expected.computeIfAbsent(table.getName().toUpperCase(), name -> new TreeSet<>());
+			}
+			for (DatabaseField field : descriptor.getFields()) {
+				addColumn(expected, field);
+			}
+			for (DatabaseMapping mapping : descriptor.getMappings()) {
+				if (mapping instanceof ManyToManyMapping manyToMany && !manyToMany.isReadOnly()) {
+					for (DatabaseField field : manyToMany.getSourceRelationKeyFields()) addColumn(expected, field);
+					for (DatabaseField field : manyToMany.getTargetRelationKeyFields()) addColumn(expected, field);
+				}
+			}
+		}
+
+		return expected;
+	}
+
+	private static void addColumn(Map<String, Set<String>> expected, DatabaseField field) {
+		if (field.getTableName() == null || field.getTableName().isEmpty()) return;
+		expected.computeIfAbsent(field.getTableName().toUpperCase(), name -> new TreeSet<>()).add(field.getName().toUpperCase());
+	}
+
+	private static Set<String> actualColumns(Connection connection, String table) throws SQLException {
+		Set<String> columns = new TreeSet<>();
+		for (String name : new String[] {table, table.toLowerCase()}) {
+			try (ResultSet rows = connection.getMetaData().getColumns(null, null, name, null)) {
+				while (rows.next()) columns.add(rows.getString("COLUMN_NAME").toUpperCase());
+			}
+			if (!columns.isEmpty()) break;
+		}
+		return columns;
+	}
+}
@@ -0,0 +1,130 @@
+package csulb.cecs323.persistence;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts a database of the natural key model, in place, into the surrogate key variant mapped by
+ * META-INF/orm-surrogate-keys.xml.  Publishers and authoring entities are numbered in name order, every
+ * foreign key column holding a name is replaced by one holding the ID, and the ID counters in
+ * CATALOG_SEQUENCES are started after the highest ID given out.  Everything happens in one transaction,
+ * so a failure leaves the database as it was.
+ * <p>
+ * Afterwards start the application with -Djpabooks.keys=surrogate -Djpabooks.schema=persistent, which
+ * checks the converted tables against the surrogate key mappings.  The statements are standard SQL as
+ * accepted by Derby; other databases may need the NOT NULL changes written their own way.
+ */
+public class SurrogateKeyMigration {
+	private static final int BATCH_SIZE = 1000;
+
+	private final EntityManagerFactory factory;
+
+	/**
+	 * @param factory  A factory for the natural key model, on the database to convert.
+	 */
+	public SurrogateKeyMigration(EntityManagerFactory factory) {
+		this.factory = factory;
+	}
+
+	public void migrate() {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			Connection connection = manager.unwrap(Connection.class);
+			if (SchemaMigrator.tableExists(connection, "CATALOG_SEQUENCES")) {
+				throw new IllegalStateException("The database already uses surrogate keys.");
+			}
+
+			try (Statement statement = connection.createStatement()) {
+				// the foreign keys refer to the primary keys being replaced, so they go first
+				dropForeignKeys(connection, statement, "BOOKS");
+				dropForeignKeys(connection, statement, "AD_HOC_TEAMS_MEMBER");
+
+				long publishers = addSurrogateKey(connection, statement, "PUBLISHERS");
+				long authors = addSurrogateKey(connection, statement, "AUTHORING_ENTITIES");
+
+				replaceForeignKey(statement, "BOOKS", "AUTHORING_ENTITY_NAME", "BOOKS_AUTHOR_IDX", "AUTHORING_ENTITY_ID", "AUTHORING_ENTITIES");
+				replaceForeignKey(statement, "BOOKS", "PUBLISHER_NAME", "BOOKS_PUBLISHER_IDX", "PUBLISHER_ID", "PUBLISHERS");
+				replaceForeignKey(statement, "AD_HOC_TEAMS_MEMBER", "AD_HOC_TEAMS_EMAIL", "AD_HOC_TEAMS_MEMBER_TEAM_IDX", "AD_HOC_TEAM_ID", "AUTHORING_ENTITIES");
+				replaceForeignKey(statement, "AD_HOC_TEAMS_MEMBER", "INDIVIDUAL_AUTHORS_EMAIL", "AD_HOC_TEAMS_MEMBER_AUTHOR_IDX", "INDIVIDUAL_AUTHOR_ID", "AUTHORING_ENTITIES");
+
+				statement.executeUpdate("CREATE TABLE CATALOG_SEQUENCES (SEQ_NAME VARCHAR(50) NOT NULL PRIMARY KEY, SEQ_COUNT DECIMAL(15))");
+				statement.executeUpdate("INSERT INTO CATALOG_SEQUENCES (SEQ_NAME, SEQ_COUNT) VALUES ('PUBLISHERS', " + publishers + ")");
+				statement.executeUpdate("INSERT INTO CATALOG_SEQUENCES (SEQ_NAME, SEQ_COUNT) VALUES ('AUTHORING_ENTITIES', " + authors + ")");
+			}
+
+			manager.getTransaction().commit();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Surrogate key migration failed: " + e.getMessage(), e);
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private static void dropForeignKeys(Connection connection, Statement statement, String table) throws SQLException {
+		List<String> names = new ArrayList<>();
+		try (ResultSet keys = connection.getMetaData().getImportedKeys(null, null, table)) {
+			while (keys.next()) names.add(keys.getString("FK_NAME"));
+		}
+		for (String name : names) statement.executeUpdate("ALTER TABLE " + table + " DROP CONSTRAINT " + name);
+	}
+
+	/**
+	 * Number the rows of the table in name order, and make that number the primary key.
+	 * @return The highest ID given out.
+	 */
+	private static long addSurrogateKey(Connection connection, Statement statement, String table) throws SQLException {
+		String primaryKey = null;
+		try (ResultSet keys = connection.getMetaData().getPrimaryKeys(null, null, table)) {
+			if (keys.next()) primaryKey = keys.getString("PK_NAME");
+		}
+
+		statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN ID BIGINT");
+
+		long id = 0;
+		List<String> names = new ArrayList<>();
+		try (ResultSet rows = statement.executeQuery("SELECT NAME FROM " + table + " ORDER BY NAME")) {
+			while (rows.next()) names.add(rows.getString(1));
+		}
+		try (PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET ID = ? WHERE NAME = ?")) {
+			for (String name : names) {
+				update.setLong(1, ++id);
+				update.setString(2, name);
+				update.addBatch();
+				if (id % BATCH_SIZE == 0) update.executeBatch();
+			}
+			update.executeBatch();
+		}
+
+		if (primaryKey != null) statement.executeUpdate("ALTER TABLE " + table + " DROP CONSTRAINT " + primaryKey);
+		statement.executeUpdate("ALTER TABLE " + table + " ALTER COLUMN ID NOT NULL");
+		statement.executeUpdate("ALTER TABLE " + table + " ADD CONSTRAINT " + table + "_PK PRIMARY KEY (ID)");
+		statement.executeUpdate("ALTER TABLE " + table + " ADD CONSTRAINT " + table + "_NAME_UQ UNIQUE (NAME)");
+		return id;
+	}
+
+	/**
+	 * Replace a column holding names with one holding the IDs of the same rows, indexed under the same
+	 * index name.
+	 */
+	private static void replaceForeignKey(Statement statement, String table, String nameColumn, String index,
+	                                      String idColumn, String referencedTable) throws SQLException {
+		statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + idColumn + " BIGINT");
+		statement.executeUpdate("UPDATE " + table + " SET " + idColumn + " = (SELECT r.ID FROM " + referencedTable +
+				" r WHERE r.NAME = " + table + "." + nameColumn + ")");
+		statement.executeUpdate("DROP INDEX " + index);
+		statement.executeUpdate("ALTER TABLE " + table + " DROP COLUMN " + nameColumn);
+		if (table.equals("BOOKS")) statement.executeUpdate("ALTER TABLE " + table + " ALTER COLUMN " + idColumn + " NOT NULL");
+		statement.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + idColumn + ")");
+		statement.executeUpdate("ALTER TABLE " + table + " ADD CONSTRAINT FK_" + table + "_" + idColumn +
+				" FOREIGN KEY (" + idColumn + ") REFERENCES " + referencedTable + " (ID)");
+	}
+}
@@ -0,0 +1,32 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.exceptions.ConcurrencyException;
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.sessions.server.ConnectionPool;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+/**
+ * A connection pool that records how long every caller waited for its connection, as the
+ * ConnectionWait operation of {@link QueryStatistics}.  EclipseLink only profiles opening a new
+ * connection, not waiting for one to be released, which is where a busy pool loses its time.
+ */
+public class TimedConnectionPool extends ConnectionPool {
+
+	/**
+	 * A pool with the same name, login and sizes as the one it replaces.
+	 */
+	public TimedConnectionPool(ConnectionPool pool, ServerSession session) {
+		super(pool.getName(), pool.getLogin(), pool.getInitialNumberOfConnections(), pool.getMinNumberOfConnections(),
+				pool.getMaxNumberOfConnections(), session);
+	}
+
+	@Override
+	public Accessor acquireConnection() throws ConcurrencyException {
+		long start = System.nanoTime();
+		try {
+			return super.acquireConnection();
+		} finally {
+			QueryStatistics.recordOperation(QueryStatistics.CONNECTION_WAIT, System.nanoTime() - start);
+		}
+	}
+}
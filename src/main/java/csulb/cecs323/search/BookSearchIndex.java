@@ -0,0 +1,425 @@
+package csulb.cecs323.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory inverted index over the title, author name and publisher name of every book, for
+ * search as you type.  The words of the three fields are the terms of the index, each pointing at the
+ * books that use it; the terms are kept sorted, so the last, unfinished word of a query matches every
+ * term it is a prefix of, and the trigrams of the terms are indexed as well, so a misspelt word
+ * still finds the terms within one or two edits of it.
+ * <p>
+ * A book matches a query when every word of the query matches a word of its title, author or
+ * publisher.  Books are ranked by how well each word matched (exactly, as a prefix, or with a typo)
+ * and in which field, title first.
+ * <p>
+ * The index is safe to search while it is being changed from other threads.
+ */
+public class BookSearchIndex {
+	private static final int MAX_PREFIX_TERMS = 200;
+	private static final int MAX_CANDIDATES = 2000;
+	private static final double EXACT = 1.0;
+	private static final double PREFIX = 0.8;
+	private static final double TYPO = 0.6;
+	private static final double[] FIELD_WEIGHTS = {3, 2, 1};
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, Entry> books = new HashMap<>();
+	private final NavigableMap<String, Set<Entry>> terms = new TreeMap<>();
+	private final Map<String, Set<String>> trigrams = new HashMap<>();
+	// books removed while a rebuild is reading the database, which the rebuild must not bring back
+	private Set<String> removedDuringRebuild;
+
+	/**
+	 * Add a book, or replace what is indexed for it.
+	 */
+	public void put(String isbn, String title, String author, String publisher, int year) {
+		Entry entry = new Entry(isbn, title, author, publisher, year);
+		lock.writeLock().lock();
+		try {
+			unindex(books.put(isbn, entry));
+			index(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(String isbn) {
+		lock.writeLock().lock();
+		try {
+			unindex(books.remove(isbn));
+			if (removedDuringRebuild != null) removedDuringRebuild.add(isbn);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove every book the test accepts, for changes made by bulk statements, which leave nothing in
+	 * the change set {@link BookSearchListener} reads.
+	 * @return The number of books removed.
+	 */
+	public int removeIf(Predicate<IndexedBook> test) {
+		lock.writeLock().lock();
+		try {
+			List<Entry> removed = new ArrayList<>();
+			for (Entry entry : books.values()) {
+				if (test.test(entry.book)) removed.add(entry);
+			}
+			for (Entry entry : removed) {
+				books.remove(entry.book.isbn());
+				unindex(entry);
+				if (removedDuringRebuild != null) removedDuringRebuild.add(entry.book.isbn());
+			}
+			return removed.size();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Move every book of one publisher to another, as ReassignBooksPublisher does in the database.
+	 */
+	public void reassignPublisher(String oldPublisher, String newPublisher) {
+		lock.writeLock().lock();
+		try {
+			List<Entry> moved = new ArrayList<>();
+			for (Entry entry : books.values()) {
+				if (entry.book.publisher().equals(oldPublisher)) moved.add(entry);
+			}
+			for (Entry entry : moved) {
+				IndexedBook book = entry.book;
+				Entry replacement = new Entry(book.isbn(), book.title(), book.author(), newPublisher, book.year());
+				unindex(entry);
+				books.put(book.isbn(), replacement);
+				index(replacement);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Empty the index before it is filled again from the database with {@link #putIfAbsent}.
+	 */
+	void startRebuild() {
+		lock.writeLock().lock();
+		try {
+			books.clear();
+			terms.clear();
+			trigrams.clear();
+			removedDuringRebuild = new HashSet<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add books read by a rebuild.  A book already indexed was changed while the rebuild ran and is
+	 * newer than what the rebuild read, and a book removed since the rebuild started stays removed.
+	 */
+	void putIfAbsent(List<IndexedBook> read) {
+		// the words are split out before taking the lock, on the rebuild's own threads
+		List<Entry> entries = new ArrayList<>(read.size());
+		for (IndexedBook book : read) entries.add(new Entry(book.isbn(), book.title(), book.author(), book.publisher(), book.year()));
+
+		lock.writeLock().lock();
+		try {
+			for (Entry entry : entries) {
+				String isbn = entry.book.isbn();
+				if (books.containsKey(isbn) || removedDuringRebuild.contains(isbn)) continue;
+				books.put(isbn, entry);
+				index(entry);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	void finishRebuild() {
+		lock.writeLock().lock();
+		try {
+			removedDuringRebuild = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return books.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * At most {@value #MAX_CANDIDATES} books are ranked, so that a short word found in most of the
+	 * catalog still answers as you type.  The candidates are the books of the word of the query with
+	 * the fewest books.  They are taken term by term, from the terms that match that word best (exactly,
+	 * then as a prefix, then with a typo) to the worst.  Once the word's terms hold more books than the
+	 * cap, the books past it are not ranked at all, and a query can miss its best hits.  A title match
+	 * can be dropped in favour of a publisher match of the same term, or a book that the other words
+	 * match better can be dropped.  An unfinished word also matches only the first
+	 * {@value #MAX_PREFIX_TERMS} terms it begins.
+	 * @param query  The words to look for; the last may be unfinished.
+	 * @param limit  The most books to return.
+	 * @return       The best matching books, best first.
+	 */
+	public List<SearchHit> search(String query, int limit) {
+		List<String> words = tokenize(query);
+		if (words.isEmpty() || limit <= 0) return List.of();
+
+		lock.readLock().lock();
+		try {
+			// for every word of the query, the terms it matches and how well
+			List<Map<String, Double>> matches = new ArrayList<>(words.size());
+			for (int i = 0; i < words.size(); i++) {
+				Map<String, Double> matched = matchTerms(words.get(i), i == words.size() - 1);
+				if (matched.isEmpty()) return List.of();
+				matches.add(matched);
+			}
+
+			// only the books of the most selective word can match them all; a short word can match most of
+			// the catalog, so its best matching terms are taken first and the rest once there are enough
+			Map<String, Double> selective = mostSelective(matches);
+			List<String> bestTerms = new ArrayList<>(selective.keySet());
+			bestTerms.sort(Comparator.comparing((String term) -> selective.get(term)).reversed().thenComparingInt(String::length));
+			Set<Entry> candidates = new HashSet<>();
+			candidates:
+			for (String term : bestTerms) {
+				for (Entry entry : terms.get(term)) {
+					if (candidates.size() >= MAX_CANDIDATES) break candidates;
+					candidates.add(entry);
+				}
+			}
+
+			PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+			for (Entry entry : candidates) {
+				double score = score(entry, matches);
+				if (score <= 0) continue;
+				best.add(new SearchHit(entry.book.isbn(), entry.book.title(), entry.book.author(), entry.book.publisher(), score));
+				if (best.size() > limit) best.poll();
+			}
+
+			List<SearchHit> hits = new ArrayList<>(best);
+			hits.sort(RANKING);
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score).reversed()
+			.thenComparingInt(hit -> hit.title().length())
+			.thenComparing(SearchHit::title)
+			.thenComparing(SearchHit::isbn);
+
+	private Map<String, Double> matchTerms(String word, boolean last) {
+		Map<String, Double> matched = new HashMap<>();
+		Set<Entry> exact = terms.get(word);
+		if (exact != null) matched.put(word, EXACT);
+
+		if (last) {
+			int count = 0;
+			for (String term : terms.subMap(word, false, word + Character.MAX_VALUE, false).keySet()) {
+				if (++count > MAX_PREFIX_TERMS) break;
+				matched.put(term, PREFIX);
+			}
+		}
+
+		// a word that is found as it is was not misspelt
+		int allowed = word.length() < 4 ? 0 : word.length() < 7 ? 1 : 2;
+		if (allowed > 0 && matched.isEmpty()) {
+			for (String term : termsSharingTrigrams(word, allowed)) {
+				int distance = editDistance(word, term, allowed);
+				// an unfinished word with a typo should still find the longer words it begins
+				if (last && distance > allowed && term.length() > word.length()) {
+					distance = editDistance(word, term.substring(0, word.length()), allowed);
+				}
+				if (distance <= allowed) matched.put(term, TYPO - 0.1 * distance);
+			}
+		}
+		return matched;
+	}
+
+	private Map<String, Double> mostSelective(List<Map<String, Double>> matches) {
+		Map<String, Double> best = null;
+		long bestCount = Long.MAX_VALUE;
+		for (Map<String, Double> matched : matches) {
+			long count = 0;
+			for (String term : matched.keySet()) count += terms.get(term).size();
+			if (count < bestCount) {
+				best = matched;
+				bestCount = count;
+			}
+		}
+		return best;
+	}
+
+	private static double score(Entry entry, List<Map<String, Double>> matches) {
+		double total = 0;
+		for (Map<String, Double> matched : matches) {
+			double best = 0;
+			for (int field = 0; field < entry.fieldTerms.length; field++) {
+				for (String term : entry.fieldTerms[field]) {
+					Double score = matched.get(term);
+					if (score != null) best = Math.max(best, score * FIELD_WEIGHTS[field]);
+				}
+			}
+			if (best == 0) return 0;
+			total += best;
+		}
+		return total;
+	}
+
+	/**
+	 * The terms that could be within the allowed number of edits of the word.  An edit changes at most
+	 * three of the trigrams of a word, so they must share all but three per edit of the word's trigrams;
+	 * an unfinished word is compared with the start of the longer terms, so only the grams of its start
+	 * are required there.
+	 */
+	private Set<String> termsSharingTrigrams(String word, int allowed) {
+		Set<String> grams = trigramsOf(word);
+		int required = Math.max(1, grams.size() - 1 - 3 * allowed);
+		Map<String, Integer> shared = new HashMap<>();
+		for (String gram : grams) {
+			Set<String> sharing = trigrams.get(gram);
+			if (sharing == null) continue;
+			for (String term : sharing) shared.merge(term, 1, Integer::sum);
+		}
+
+		Set<String> found = new HashSet<>();
+		for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+			if (entry.getValue() >= required) found.add(entry.getKey());
+		}
+		return found;
+	}
+
+	private void index(Entry entry) {
+		for (String[] fieldTerms : entry.fieldTerms) {
+			for (String term : fieldTerms) {
+				Set<Entry> postings = terms.get(term);
+				if (postings == null) {
+					postings = new HashSet<>();
+					terms.put(term, postings);
+					for (String gram : trigramsOf(term)) trigrams.computeIfAbsent(gram, key -> new HashSet<>()).add(term);
+				}
+				postings.add(entry);
+			}
+		}
+	}
+
+	private void unindex(Entry entry) {
+		if (entry == null) return;
+		for (String[] fieldTerms : entry.fieldTerms) {
+			for (String term : fieldTerms) {
+				Set<Entry> postings = terms.get(term);
+				if (postings == null || !postings.remove(entry) || !postings.isEmpty()) continue;
+
+				terms.remove(term);
+				for (String gram : trigramsOf(term)) {
+					Set<String> sharing = trigrams.get(gram);
+					if (sharing != null && sharing.remove(term) && sharing.isEmpty()) trigrams.remove(gram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The words of a text, lower case and without accents, so that "Émile" is found by "emile".
+	 */
+	static List<String> tokenize(String text) {
+		if (text == null) return List.of();
+		String plain = isAscii(text) ? text : Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+
+		List<String> words = new ArrayList<>();
+		int start = -1;
+		for (int i = 0; i <= plain.length(); i++) {
+			boolean inWord = i < plain.length() && Character.isLetterOrDigit(plain.charAt(i));
+			if (inWord && start < 0) start = i;
+			if (!inWord && start >= 0) {
+				words.add(plain.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	private static boolean isAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) return false;
+		}
+		return true;
+	}
+
+	private static Set<String> trigramsOf(String term) {
+		String padded = "  " + term + " ";
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) grams.add(padded.substring(i, i + 3));
+		return grams;
+	}
+
+	/**
+	 * The optimal string alignment distance between two words (insertions, deletions, substitutions
+	 * and swaps of neighbouring letters), or anything above the limit once it is sure to exceed it.
+	 */
+	static int editDistance(String a, String b, int limit) {
+		if (Math.abs(a.length() - b.length()) > limit) return limit + 1;
+		int[] previous2 = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) previous[j] = j;
+
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], previous2[j - 2] + 1);
+				}
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > limit) return limit + 1;
+			int[] recycled = previous2;
+			previous2 = previous;
+			previous = current;
+			current = recycled;
+		}
+		return previous[b.length()];
+	}
+
+	/**
+	 * An indexed book, and the terms of its title, author and publisher.
+	 */
+	private static class Entry {
+		private final IndexedBook book;
+		private final String[][] fieldTerms;
+
+		Entry(String isbn, String title, String author, String publisher, int year) {
+			this.book = new IndexedBook(isbn, title, author, publisher, year);
+			this.fieldTerms = new String[][] {distinct(title), distinct(author), distinct(publisher)};
+		}
+
+		private static String[] distinct(String text) {
+			return tokenize(text).stream().distinct().toArray(String[]::new);
+		}
+	}
+}
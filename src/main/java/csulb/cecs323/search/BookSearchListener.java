@@ -0,0 +1,73 @@
+package csulb.cecs323.search;
+
+import csulb.cecs323.model.Books;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.UnitOfWork;
+import org.eclipse.persistence.sessions.changesets.ObjectChangeSet;
+import org.eclipse.persistence.sessions.changesets.UnitOfWorkChangeSet;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@link CatalogSearch} current as books are inserted, changed and deleted through JPA.  Like the
+ * catalog snapshot's listener, it reads the change set of every committed unit of work, so the index
+ * only ever sees committed books and a transaction that rolls back leaves it untouched.  Bulk
+ * statements leave nothing in the change set; BulkBookOperations hands their changes to
+ * {@link #afterCommit}, and they are applied with the rest, or dropped if the transaction rolls back.
+ */
+public class BookSearchListener extends SessionEventAdapter {
+	private static final String PENDING_CHANGES = "jpabooks.search.pendingChanges";
+
+	/**
+	 * Change the index once the manager's current transaction commits, for a change the change set does
+	 * not show.  Nothing is changed if the transaction rolls back.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void afterCommit(EntityManager manager, Consumer<BookSearchIndex> change) {
+		if (!CatalogSearch.isEnabled()) return;
+		UnitOfWork unitOfWork = manager.unwrap(UnitOfWork.class);
+		List<Consumer<BookSearchIndex>> pending = (List<Consumer<BookSearchIndex>>) unitOfWork.getProperty(PENDING_CHANGES);
+		if (pending == null) {
+			pending = new ArrayList<>();
+			unitOfWork.setProperty(PENDING_CHANGES, pending);
+		}
+		pending.add(change);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void postCommitUnitOfWork(SessionEvent event) {
+		if (!(event.getSession() instanceof UnitOfWorkImpl unitOfWork)) return;
+		List<Consumer<BookSearchIndex>> pending = (List<Consumer<BookSearchIndex>>) unitOfWork.getProperty(PENDING_CHANGES);
+		unitOfWork.removeProperty(PENDING_CHANGES);
+		if (!CatalogSearch.isEnabled()) return;
+		BookSearchIndex index = CatalogSearch.index();
+
+		if (pending != null) pending.forEach(change -> change.accept(index));
+
+		UnitOfWorkChangeSet changeSet = unitOfWork.getUnitOfWorkChangeSet();
+		if (changeSet != null) {
+			for (Object key : changeSet.getAllChangeSets().keySet()) {
+				Object object = changeSet.getUOWCloneForObjectChangeSet((ObjectChangeSet) key);
+				if (object instanceof Books book && !unitOfWork.getObjectsDeletedDuringCommit().containsKey(book)) {
+					index.put(book.getISBN(), book.getTitle(), book.getAuthor().getName(), book.getPublisher().getName(),
+							book.getYearPublished());
+				}
+			}
+		}
+		for (Object object : unitOfWork.getObjectsDeletedDuringCommit().keySet()) {
+			if (object instanceof Books book) index.remove(book.getISBN());
+		}
+	}
+
+	@Override
+	public void postReleaseUnitOfWork(SessionEvent event) {
+		// released without committing (rolled back), or after postCommitUnitOfWork has taken the changes
+		if (event.getSession() instanceof UnitOfWorkImpl unitOfWork) unitOfWork.removeProperty(PENDING_CHANGES);
+	}
+}
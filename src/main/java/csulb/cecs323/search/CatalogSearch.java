@@ -0,0 +1,116 @@
+package csulb.cecs323.search;
+
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.sessions.SessionEventManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The search index of the catalog, shared by the whole application, and its rebuild from the database.
+ * The rebuild reads the books a few publishers at a time, on several threads each with its own
+ * EntityManager, and runs in the background at startup; searches wait for it to finish, while
+ * {@link BookSearchListener}, added to the factory's session by the rebuild, keeps the index current
+ * from the start.
+ */
+public final class CatalogSearch {
+	private static final int MAX_PUBLISHERS_PER_READ = 100;
+
+	private static final BookSearchIndex INDEX = new BookSearchIndex();
+	private static volatile CompletableFuture<Integer> rebuilt = CompletableFuture.completedFuture(0);
+	private static volatile boolean enabled;
+
+	private CatalogSearch() {}
+
+	public static BookSearchIndex index() {
+		return INDEX;
+	}
+
+	/**
+	 * @return Whether the index has been built, and so should be kept current.  Until then the
+	 *         listener leaves it alone, so that imports and the HTTP service do not pay for it.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Search the catalog, waiting for a rebuild in progress to finish first.
+	 */
+	public static List<SearchHit> search(String query, int limit) {
+		rebuilt.join();
+		return INDEX.search(query, limit);
+	}
+
+	/**
+	 * Start rebuilding the index from the database in the background.
+	 * @param workers  The number of threads reading the books.
+	 * @return         Completed with the number of books indexed.
+	 */
+	public static synchronized CompletableFuture<Integer> rebuildInBackground(EntityManagerFactory factory, int workers) {
+		CompletableFuture<Integer> rebuild = CompletableFuture.supplyAsync(() -> rebuild(factory, workers));
+		rebuilt = rebuild;
+		return rebuild;
+	}
+
+	/**
+	 * Rebuild the index from the database.
+	 * @return The number of books indexed.
+	 */
+	public static int rebuild(EntityManagerFactory factory, int workers) {
+		listenTo(factory);
+		// from here on the listener's changes are newer than anything the rebuild reads
+		INDEX.startRebuild();
+		enabled = true;
+
+		List<String> publishers;
+		EntityManager manager = factory.createEntityManager();
+		try {
+			publishers = manager.createNamedQuery("ReturnPublisherNames", String.class).getResultList();
+		} finally {
+			manager.close();
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		try {
+			List<CompletableFuture<Void>> reads = new ArrayList<>();
+			// a few reads per worker, so that a slow one does not hold up the rest
+			int perRead = Math.max(1, Math.min(MAX_PUBLISHERS_PER_READ, publishers.size() / (workers * 4)));
+			for (int i = 0; i < publishers.size(); i += perRead) {
+				List<String> slice = publishers.subList(i, Math.min(i + perRead, publishers.size()));
+				reads.add(CompletableFuture.runAsync(() -> INDEX.putIfAbsent(readBooks(factory, slice)), pool));
+			}
+			CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).join();
+		} finally {
+			pool.shutdown();
+			INDEX.finishRebuild();
+		}
+		return INDEX.size();
+	}
+
+	private static synchronized void listenTo(EntityManagerFactory factory) {
+		SessionEventManager events = JpaHelper.getServerSession(factory).getEventManager();
+		if (events.getListeners().stream().noneMatch(BookSearchListener.class::isInstance)) {
+			events.addListener(new BookSearchListener());
+		}
+	}
+
+	private static List<IndexedBook> readBooks(EntityManagerFactory factory, List<String> publishers) {
+		EntityManager manager = factory.createEntityManager();
+		try {
+			List<IndexedBook> books = new ArrayList<>();
+			for (Object[] row : manager.createNamedQuery("ReturnSearchableBooks", Object[].class)
+					.setParameter("publishers", publishers).getResultList()) {
+				books.add(new IndexedBook((String) row[0], (String) row[1], (String) row[3], (String) row[4], (Integer) row[2]));
+			}
+			return books;
+		} finally {
+			manager.close();
+		}
+	}
+}
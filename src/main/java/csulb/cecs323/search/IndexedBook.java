@@ -0,0 +1,8 @@
+package csulb.cecs323.search;
+
+/**
+ * What the search index knows about a book: the fields it searches, and the year so that bulk
+ * removals by year can be applied to it.
+ */
+public record IndexedBook(String isbn, String title, String author, String publisher, int year) {
+}
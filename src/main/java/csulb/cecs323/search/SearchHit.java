@@ -0,0 +1,7 @@
+package csulb.cecs323.search;
+
+/**
+ * A book found by {@link BookSearchIndex#search}, with its score; the higher the better the match.
+ */
+public record SearchHit(String isbn, String title, String author, String publisher, double score) {
+}
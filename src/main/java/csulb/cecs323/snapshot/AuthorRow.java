@@ -0,0 +1,43 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.AdHocTeam;
+import csulb.cecs323.model.Authoring_Entities;
+import csulb.cecs323.model.IndividualAuthor;
+import csulb.cecs323.model.Writing_Groups;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An authoring entity as the catalog snapshot returns it.
+ * @param type        WritingGroup, IndividualAuthor or AdHocTeam, as in the catalog files.
+ * @param headWriter  Only set for a writing group.
+ * @param yearFormed  Only set for a writing group, 0 otherwise.
+ * @param members     The names of the members of an ad hoc team, empty for the other types.
+ */
+public record AuthorRow(String name, String type, String email, String headWriter, int yearFormed, List<String> members) {
+	public static final String WRITING_GROUP = "WritingGroup";
+	public static final String INDIVIDUAL_AUTHOR = "IndividualAuthor";
+	public static final String AD_HOC_TEAM = "AdHocTeam";
+
+	static AuthorRow of(Authoring_Entities author) {
+		List<String> members = new ArrayList<>();
+		if (author instanceof AdHocTeam team && team.getTeamMembers() != null) {
+			for (IndividualAuthor member : team.getTeamMembers()) members.add(member.getName());
+		}
+		return of(author, members);
+	}
+
+	/**
+	 * @param members  The names of the members, when the author is an ad hoc team.
+	 */
+	static AuthorRow of(Authoring_Entities author, List<String> members) {
+		if (author instanceof Writing_Groups group) {
+			return new AuthorRow(group.getName(), WRITING_GROUP, group.getEmail(), group.getHeadWriter(), group.getYearFormed(), List.of());
+		}
+		if (author instanceof AdHocTeam) {
+			return new AuthorRow(author.getName(), AD_HOC_TEAM, author.getEmail(), null, 0, List.copyOf(members));
+		}
+		return new AuthorRow(author.getName(), INDIVIDUAL_AUTHOR, author.getEmail(), null, 0, List.of());
+	}
+}
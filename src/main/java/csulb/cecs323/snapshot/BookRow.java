@@ -0,0 +1,13 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Books;
+
+/**
+ * A book as the catalog snapshot returns it, with its author and publisher given by name.
+ */
+public record BookRow(String isbn, String title, int yearPublished, String author, String publisher) {
+	static BookRow of(Books book) {
+		return new BookRow(book.getISBN(), book.getTitle(), book.getYearPublished(),
+				book.getAuthor().getName(), book.getPublisher().getName());
+	}
+}
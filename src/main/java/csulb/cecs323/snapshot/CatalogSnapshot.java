@@ -0,0 +1,372 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Isbn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of the whole catalog, for serving lookups without a persistence context.  Rather
+ * than one object per book, author and publisher, every field is a column: strings in a
+ * {@link StringColumn}, numbers in primitive arrays (the ISBNs too, as the numbers of their ISBN-13s),
+ * and references as the row number of the author or publisher.  Books are found by ISBN, and authors
+ * and publishers by name, through hash indexes on those columns.
+ * <p>
+ * Changes committed after the columns were built are kept beside them, in small maps that are checked
+ * first, and each set of changes gives a new snapshot sharing the columns of the old one.  Once there
+ * are enough of them, {@link #compact()} folds them into new columns.
+ */
+public final class CatalogSnapshot {
+	/** Changes are folded into the columns once there are more than this, or one per 64 rows. */
+	private static final int MIN_CHANGES_BEFORE_COMPACTION = 1024;
+
+	/** A guess at the bytes taken by each changed row, the map entry, the record and its strings. */
+	private static final int CHANGED_ROW_FOOTPRINT = 200;
+
+	private static final String[] AUTHOR_TYPES = {AuthorRow.WRITING_GROUP, AuthorRow.INDIVIDUAL_AUTHOR, AuthorRow.AD_HOC_TEAM};
+
+	private final Columns columns;
+	private final Map<String, PublisherRow> changedPublishers;
+	private final Map<String, AuthorRow> changedAuthors;
+	private final Map<String, BookRow> changedBooks;
+	private final int publisherCount;
+	private final int authorCount;
+	private final int bookCount;
+
+	private CatalogSnapshot(Columns columns, Map<String, PublisherRow> changedPublishers, Map<String, AuthorRow> changedAuthors,
+	                        Map<String, BookRow> changedBooks, int publisherCount, int authorCount, int bookCount) {
+		this.columns = columns;
+		this.changedPublishers = changedPublishers;
+		this.changedAuthors = changedAuthors;
+		this.changedBooks = changedBooks;
+		this.publisherCount = publisherCount;
+		this.authorCount = authorCount;
+		this.bookCount = bookCount;
+	}
+
+	/**
+	 * @return The publisher of the given name, or null if there is none.
+	 */
+	public PublisherRow getPublisher(String name) {
+		if (changedPublishers.containsKey(name)) return changedPublishers.get(name);
+		int row = columns.publisherNames.find(columns.publisherIndex, name);
+		return row < 0 ? null : columns.publisherAt(row);
+	}
+
+	/**
+	 * @return The authoring entity of the given name, or null if there is none.
+	 */
+	public AuthorRow getAuthor(String name) {
+		if (changedAuthors.containsKey(name)) return changedAuthors.get(name);
+		int row = columns.authorNames.find(columns.authorIndex, name);
+		return row < 0 ? null : columns.authorAt(row);
+	}
+
+	/**
+	 * @param isbn  The ISBN-10 or ISBN-13 of the book, written any way {@link Isbn} reads.
+	 * @return      The book with the given ISBN, or null if there is none.
+	 * @throws IllegalArgumentException if it is not an ISBN.
+	 */
+	public BookRow getBook(String isbn) {
+		long key = Isbn.parse(isbn);
+		String canonical = Isbn.format(key);
+		if (changedBooks.containsKey(canonical)) return changedBooks.get(canonical);
+		int row = columns.isbns.find(columns.isbnIndex, key);
+		return row < 0 ? null : columns.bookAt(row);
+	}
+
+	public int publisherCount() {
+		return publisherCount;
+	}
+
+	public int authorCount() {
+		return authorCount;
+	}
+
+	public int bookCount() {
+		return bookCount;
+	}
+
+	/**
+	 * @return The approximate number of bytes of heap the snapshot takes, its columns and indexes plus
+	 *         an estimate for the changes not folded into them yet.
+	 */
+	public long footprint() {
+		return columns.footprint() + (long) CHANGED_ROW_FOOTPRINT * changeCount();
+	}
+
+	public String format() {
+		return String.format("%d publishers, %d authors, %d books in %.1f MB (%d changes not yet compacted, %.0f bytes per book)",
+				publisherCount, authorCount, bookCount, footprint() / (1024.0 * 1024.0), changeCount(),
+				bookCount == 0 ? 0.0 : (double) footprint() / bookCount);
+	}
+
+	/**
+	 * @return A snapshot with the changes applied, sharing the columns of this one.
+	 */
+	CatalogSnapshot withChanges(SnapshotChanges changes) {
+		Map<String, PublisherRow> publishers = changedPublishers;
+		Map<String, AuthorRow> authors = changedAuthors;
+		Map<String, BookRow> books = changedBooks;
+		int publishersAfter = publisherCount;
+		int authorsAfter = authorCount;
+		int booksAfter = bookCount;
+
+		if (!changes.publishers.isEmpty()) {
+			publishers = new HashMap<>(changedPublishers);
+			for (Map.Entry<String, PublisherRow> change : changes.publishers.entrySet()) {
+				publishersAfter += presence(change.getValue()) - presence(getPublisher(change.getKey()));
+				publishers.put(change.getKey(), change.getValue());
+			}
+		}
+		if (!changes.authors.isEmpty()) {
+			authors = new HashMap<>(changedAuthors);
+			for (Map.Entry<String, AuthorRow> change : changes.authors.entrySet()) {
+				authorsAfter += presence(change.getValue()) - presence(getAuthor(change.getKey()));
+				authors.put(change.getKey(), change.getValue());
+			}
+		}
+		if (!changes.books.isEmpty()) {
+			books = new HashMap<>(changedBooks);
+			for (Map.Entry<String, BookRow> change : changes.books.entrySet()) {
+				booksAfter += presence(change.getValue()) - presence(getBook(change.getKey()));
+				books.put(change.getKey(), change.getValue());
+			}
+		}
+		return new CatalogSnapshot(columns, publishers, authors, books, publishersAfter, authorsAfter, booksAfter);
+	}
+
+	boolean needsCompaction() {
+		return changeCount() > Math.max(MIN_CHANGES_BEFORE_COMPACTION, columns.rowCount() / 64);
+	}
+
+	/**
+	 * @return A snapshot of the same catalog with the changes folded into new columns.
+	 */
+	CatalogSnapshot compact() {
+		Builder builder = new Builder();
+		for (int row = 0; row < columns.publisherNames.size(); row++) {
+			PublisherRow publisher = columns.publisherAt(row);
+			if (!changedPublishers.containsKey(publisher.name())) builder.addPublisher(publisher);
+		}
+		for (PublisherRow publisher : changedPublishers.values()) {
+			if (publisher != null) builder.addPublisher(publisher);
+		}
+		for (int row = 0; row < columns.authorNames.size(); row++) {
+			AuthorRow author = columns.authorAt(row);
+			if (!changedAuthors.containsKey(author.name())) builder.addAuthor(author);
+		}
+		for (AuthorRow author : changedAuthors.values()) {
+			if (author != null) builder.addAuthor(author);
+		}
+		for (int row = 0; row < columns.isbns.size(); row++) {
+			BookRow book = columns.bookAt(row);
+			if (!changedBooks.containsKey(book.isbn())) builder.addBook(book);
+		}
+		for (BookRow book : changedBooks.values()) {
+			if (book != null) builder.addBook(book);
+		}
+		return builder.build();
+	}
+
+	private int changeCount() {
+		return changedPublishers.size() + changedAuthors.size() + changedBooks.size();
+	}
+
+	private static int presence(Object row) {
+		return row == null ? 0 : 1;
+	}
+
+	/**
+	 * The rows as they were when the snapshot was built.
+	 */
+	private static final class Columns {
+		private StringColumn publisherNames;
+		private StringColumn publisherEmails;
+		private StringColumn publisherPhones;
+		private int[] publisherIndex;
+
+		private StringColumn authorNames;
+		private StringColumn authorEmails;
+		private StringColumn headWriters;
+		private byte[] authorTypes;
+		private int[] yearsFormed;
+		/** The members of the team in row r are the author rows members[memberStarts[r]] to members[memberStarts[r + 1] - 1]. */
+		private int[] memberStarts;
+		private int[] members;
+		private int[] authorIndex;
+
+		private LongColumn isbns;
+		private StringColumn titles;
+		private int[] yearsPublished;
+		private int[] bookAuthors;
+		private int[] bookPublishers;
+		private int[] isbnIndex;
+
+		private PublisherRow publisherAt(int row) {
+			return new PublisherRow(publisherNames.get(row), publisherEmails.get(row), publisherPhones.get(row));
+		}
+
+		private AuthorRow authorAt(int row) {
+			List<String> names = List.of();
+			if (memberStarts[row] < memberStarts[row + 1]) {
+				String[] memberNames = new String[memberStarts[row + 1] - memberStarts[row]];
+				for (int i = 0; i < memberNames.length; i++) memberNames[i] = authorNames.get(members[memberStarts[row] + i]);
+				names = List.of(memberNames);
+			}
+			return new AuthorRow(authorNames.get(row), AUTHOR_TYPES[authorTypes[row]], authorEmails.get(row),
+					headWriters.get(row), yearsFormed[row], names);
+		}
+
+		private BookRow bookAt(int row) {
+			return new BookRow(Isbn.format(isbns.get(row)), titles.get(row), yearsPublished[row],
+					authorNames.get(bookAuthors[row]), publisherNames.get(bookPublishers[row]));
+		}
+
+		private int rowCount() {
+			return publisherNames.size() + authorNames.size() + isbns.size();
+		}
+
+		private long footprint() {
+			return publisherNames.footprint() + publisherEmails.footprint() + publisherPhones.footprint() + bytes(publisherIndex)
+					+ authorNames.footprint() + authorEmails.footprint() + headWriters.footprint() + 16L + authorTypes.length
+					+ bytes(yearsFormed) + bytes(memberStarts) + bytes(members) + bytes(authorIndex)
+					+ isbns.footprint() + titles.footprint() + bytes(yearsPublished) + bytes(bookAuthors) + bytes(bookPublishers)
+					+ bytes(isbnIndex);
+		}
+
+		private static long bytes(int[] array) {
+			return 16L + 4L * array.length;
+		}
+	}
+
+	/**
+	 * Builds a snapshot row by row: the publishers, then the authors, then the books.  A book whose
+	 * author or publisher was not added (written while the snapshot was being read), and a team with
+	 * such a member, are kept as changes instead.
+	 */
+	static final class Builder {
+		private final StringColumn.Builder publisherNames = new StringColumn.Builder(false);
+		private final StringColumn.Builder publisherEmails = new StringColumn.Builder(false);
+		private final StringColumn.Builder publisherPhones = new StringColumn.Builder(false);
+		private final Map<String, Integer> publisherRows = new HashMap<>();
+
+		private final StringColumn.Builder authorNames = new StringColumn.Builder(false);
+		private final StringColumn.Builder authorEmails = new StringColumn.Builder(false);
+		private final StringColumn.Builder headWriters = new StringColumn.Builder(true);
+		private byte[] authorTypes = new byte[64];
+		private int[] yearsFormed = new int[64];
+		private final Map<String, Integer> authorRows = new HashMap<>();
+		private final Map<Integer, AuthorRow> teams = new HashMap<>();
+
+		private final LongColumn.Builder isbns = new LongColumn.Builder();
+		private final StringColumn.Builder titles = new StringColumn.Builder(true);
+		private int[] yearsPublished = new int[64];
+		private int[] bookAuthors = new int[64];
+		private int[] bookPublishers = new int[64];
+		private int books;
+
+		private final Map<String, AuthorRow> unresolvedAuthors = new HashMap<>();
+		private final Map<String, BookRow> unresolvedBooks = new HashMap<>();
+
+		void addPublisher(PublisherRow publisher) {
+			publisherRows.put(publisher.name(), publisherRows.size());
+			publisherNames.add(publisher.name());
+			publisherEmails.add(publisher.email());
+			publisherPhones.add(publisher.phone());
+		}
+
+		void addAuthor(AuthorRow author) {
+			int row = authorRows.size();
+			if (row == authorTypes.length) {
+				authorTypes = Arrays.copyOf(authorTypes, row * 2);
+				yearsFormed = Arrays.copyOf(yearsFormed, row * 2);
+			}
+			authorRows.put(author.name(), row);
+			authorNames.add(author.name());
+			authorEmails.add(author.email());
+			headWriters.add(author.headWriter());
+			authorTypes[row] = (byte) Arrays.asList(AUTHOR_TYPES).indexOf(author.type());
+			yearsFormed[row] = author.yearFormed();
+			// members may come later in the order the authors are added, so they are resolved at the end
+			if (!author.members().isEmpty()) teams.put(row, author);
+		}
+
+		void addBook(BookRow book) {
+			Integer author = authorRows.get(book.author());
+			Integer publisher = publisherRows.get(book.publisher());
+			if (author == null || publisher == null) {
+				unresolvedBooks.put(book.isbn(), book);
+				return;
+			}
+
+			if (books == yearsPublished.length) {
+				yearsPublished = Arrays.copyOf(yearsPublished, books * 2);
+				bookAuthors = Arrays.copyOf(bookAuthors, books * 2);
+				bookPublishers = Arrays.copyOf(bookPublishers, books * 2);
+			}
+			isbns.add(Isbn.parse(book.isbn()));
+			titles.add(book.title());
+			yearsPublished[books] = book.yearPublished();
+			bookAuthors[books] = author;
+			bookPublishers[books] = publisher;
+			books++;
+		}
+
+		CatalogSnapshot build() {
+			Columns columns = new Columns();
+			int authors = authorRows.size();
+
+			columns.publisherNames = publisherNames.build();
+			columns.publisherEmails = publisherEmails.build();
+			columns.publisherPhones = publisherPhones.build();
+			columns.publisherIndex = columns.publisherNames.index();
+
+			columns.authorNames = authorNames.build();
+			columns.authorEmails = authorEmails.build();
+			columns.headWriters = headWriters.build();
+			columns.authorTypes = Arrays.copyOf(authorTypes, authors);
+			columns.yearsFormed = Arrays.copyOf(yearsFormed, authors);
+			columns.authorIndex = columns.authorNames.index();
+			buildMembers(columns, authors);
+
+			columns.isbns = isbns.build();
+			columns.titles = titles.build();
+			columns.yearsPublished = Arrays.copyOf(yearsPublished, books);
+			columns.bookAuthors = Arrays.copyOf(bookAuthors, books);
+			columns.bookPublishers = Arrays.copyOf(bookPublishers, books);
+			columns.isbnIndex = columns.isbns.index();
+
+			return new CatalogSnapshot(columns, new HashMap<>(), unresolvedAuthors, unresolvedBooks,
+					publisherRows.size(), authors, books + unresolvedBooks.size());
+		}
+
+		private void buildMembers(Columns columns, int authors) {
+			int[] memberStarts = new int[authors + 1];
+			List<Integer> members = new ArrayList<>();
+			for (int row = 0; row < authors; row++) {
+				memberStarts[row] = members.size();
+				AuthorRow team = teams.get(row);
+				if (team == null) continue;
+
+				int start = members.size();
+				for (String name : team.members()) {
+					Integer member = authorRows.get(name);
+					if (member == null) {
+						// left out of the columns, the team is kept as a change with all its members
+						unresolvedAuthors.put(team.name(), team);
+						members.subList(start, members.size()).clear();
+						break;
+					}
+					members.add(member);
+				}
+			}
+			memberStarts[authors] = members.size();
+			columns.memberStarts = memberStarts;
+			columns.members = members.stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+}
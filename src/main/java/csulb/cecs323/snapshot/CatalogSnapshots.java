@@ -0,0 +1,162 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Authoring_Entities;
+import csulb.cecs323.model.Publishers;
+import org.eclipse.persistence.jpa.JpaHelper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The current {@link CatalogSnapshot} of the application, and how it is kept current.  Once enabled,
+ * the snapshot is loaded from the database a page at a time, then every committed unit of work is
+ * applied to it by {@link SnapshotListener}, each time replacing it with a new snapshot.  Readers take
+ * whichever snapshot is current and see one consistent catalog for as long as they hold it.
+ * <p>
+ * Loading, reloading and compacting a snapshot run on a background thread.  The changes committed
+ * meanwhile are applied to the current snapshot as usual, and again to the new one before it replaces
+ * the current one, so none are lost.
+ * <p>
+ * What each commit costs: a commit that changes catalog rows is applied on the committing thread under
+ * the class lock, so commits are applied one at a time and in order.  The new snapshot copies the maps
+ * of changes not yet compacted, for each kind of row the commit touched.  They hold at most about
+ * max(1024, rows / 64) entries in all, as past that they are compacted into new columns, so for a catalog
+ * of a million books a commit copies up to some 16,000 map entries.  Commits that change no catalog
+ * rows skip all of this.  Readers never take the lock; they only read the current snapshot.
+ */
+public final class CatalogSnapshots {
+	private static final Logger LOGGER = Logger.getLogger(CatalogSnapshots.class.getName());
+	private static final int PAGE_SIZE = 10_000;
+
+	private static final AtomicReference<CatalogSnapshot> CURRENT = new AtomicReference<>();
+	private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "catalog-snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// guarded by the class lock
+	private static EntityManagerFactory factory;
+	/** The changes committed since the build in progress started, or null when there is none. */
+	private static List<SnapshotChanges> committedDuringBuild;
+	private static boolean reloadRequested;
+
+	private CatalogSnapshots() {}
+
+	/**
+	 * @return The current snapshot, or null until the first one has been loaded.
+	 */
+	public static CatalogSnapshot current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Start keeping a snapshot of the catalog, loading the first one in the background.
+	 * @return Completed with the first snapshot once it is loaded, or with null if loading failed.
+	 */
+	public static synchronized CompletableFuture<CatalogSnapshot> enable(EntityManagerFactory factory) {
+		if (CatalogSnapshots.factory != null) throw new IllegalStateException("The catalog snapshot is already enabled.");
+		CatalogSnapshots.factory = factory;
+		JpaHelper.getServerSession(factory).getEventManager().addListener(new SnapshotListener());
+		return startBuild(() -> load(factory));
+	}
+
+	/**
+	 * Load a new snapshot from the database in the background, for changes that could not be applied
+	 * row by row.  If a build is already running, the reload starts once it is done.
+	 */
+	public static synchronized void reload() {
+		if (factory == null) return;
+		if (committedDuringBuild != null) reloadRequested = true;
+		else startBuild(() -> load(factory));
+	}
+
+	static synchronized void apply(SnapshotChanges changes) {
+		CatalogSnapshot snapshot = CURRENT.get();
+		if (snapshot != null) {
+			snapshot = snapshot.withChanges(changes);
+			CURRENT.set(snapshot);
+		}
+
+		if (changes.reload) reload();
+		if (committedDuringBuild != null) committedDuringBuild.add(changes);
+		else if (snapshot != null && snapshot.needsCompaction()) startBuild(snapshot::compact);
+	}
+
+	private static CompletableFuture<CatalogSnapshot> startBuild(Supplier<CatalogSnapshot> build) {
+		committedDuringBuild = new ArrayList<>();
+		return CompletableFuture.supplyAsync(build, BUILDER).handle(CatalogSnapshots::finishBuild);
+	}
+
+	private static synchronized CatalogSnapshot finishBuild(CatalogSnapshot built, Throwable failure) {
+		List<SnapshotChanges> committed = committedDuringBuild;
+		committedDuringBuild = null;
+
+		if (failure != null) {
+			// the current snapshot already has the changes, so it is only out of date if a reload was wanted
+			LOGGER.log(Level.WARNING, "Building the catalog snapshot failed", failure);
+		}
+		else {
+			for (SnapshotChanges changes : committed) built = built.withChanges(changes);
+			CURRENT.set(built);
+		}
+
+		if (reloadRequested) {
+			reloadRequested = false;
+			startBuild(() -> load(factory));
+		}
+		return CURRENT.get();
+	}
+
+	private static CatalogSnapshot load(EntityManagerFactory factory) {
+		CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+		EntityManager manager = factory.createEntityManager();
+		try {
+			readPages(manager, "ReturnPublishers", Publishers.class, Publishers::getName,
+					publisher -> builder.addPublisher(PublisherRow.of(publisher)));
+			// the team members are read by name, rather than through the teams a page at a time
+			Map<String, List<String>> members = new HashMap<>();
+			for (Object[] member : manager.createNamedQuery("ReturnTeamMemberNames", Object[].class).getResultList()) {
+				members.computeIfAbsent((String) member[0], team -> new ArrayList<>()).add((String) member[1]);
+			}
+			readPages(manager, "ReturnAuthors", Authoring_Entities.class, Authoring_Entities::getName,
+					author -> builder.addAuthor(AuthorRow.of(author, members.getOrDefault(author.getName(), List.of()))));
+			readPages(manager, "ReturnBookRows", BookRow.class, BookRow::isbn, builder::addBook);
+		} finally {
+			manager.close();
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Read every row of a keyset paged query, clearing the persistence context after each page.
+	 * @param queries  What the names of the queries start with: the first page is read with the
+	 *                 "...FirstPage" query, and each page after it with the "...PageAfter" query.
+	 */
+	private static <T> void readPages(EntityManager manager, String queries, Class<T> type, Function<T, String> keyOf, Consumer<T> action) {
+		TypedQuery<T> query = manager.createNamedQuery(queries + "FirstPage", type);
+		List<T> page;
+		do {
+			page = query.setMaxResults(PAGE_SIZE).getResultList();
+			for (T row : page) action.accept(row);
+			if (!page.isEmpty()) {
+				query = manager.createNamedQuery(queries + "PageAfter", type).setParameter("key", keyOf.apply(page.get(page.size() - 1)));
+			}
+			manager.clear();
+		} while (page.size() == PAGE_SIZE);
+	}
+}
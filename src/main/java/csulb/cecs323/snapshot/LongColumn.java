@@ -0,0 +1,78 @@
+package csulb.cecs323.snapshot;
+
+import java.util.Arrays;
+
+/**
+ * One long value per row, in a primitive array.  Like a {@link StringColumn} of unique values it can be
+ * given a hash index, an open addressing table of row numbers ({@link #index()}), to find the row
+ * holding a value.
+ */
+final class LongColumn {
+	private final long[] values;
+
+	private LongColumn(long[] values) {
+		this.values = values;
+	}
+
+	int size() {
+		return values.length;
+	}
+
+	long get(int row) {
+		return values[row];
+	}
+
+	/**
+	 * @return The slots of a hash index over the rows, each holding a row number plus one or 0 when
+	 *         empty.  The table is kept at most half full.
+	 */
+	int[] index() {
+		int[] slots = new int[Math.max(2, Integer.highestOneBit(Math.max(1, values.length) * 2 - 1) << 1)];
+		int mask = slots.length - 1;
+		for (int row = 0; row < values.length; row++) {
+			int slot = hash(values[row]) & mask;
+			while (slots[slot] != 0) slot = (slot + 1) & mask;
+			slots[slot] = row + 1;
+		}
+		return slots;
+	}
+
+	/**
+	 * @param slots  The hash index built by {@link #index()}.
+	 * @return       The row holding the value, or -1 when there is none.
+	 */
+	int find(int[] slots, long value) {
+		int mask = slots.length - 1;
+		for (int slot = hash(value) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+			int row = slots[slot] - 1;
+			if (values[row] == value) return row;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The bytes taken by the column, its array and header.
+	 */
+	long footprint() {
+		return 16L + 8L * values.length;
+	}
+
+	private static int hash(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	static final class Builder {
+		private long[] values = new long[64];
+		private int rows;
+
+		void add(long value) {
+			if (rows == values.length) values = Arrays.copyOf(values, rows * 2);
+			values[rows++] = value;
+		}
+
+		LongColumn build() {
+			return new LongColumn(Arrays.copyOf(values, rows));
+		}
+	}
+}
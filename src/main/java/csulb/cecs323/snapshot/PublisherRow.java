@@ -0,0 +1,12 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Publishers;
+
+/**
+ * A publisher as the catalog snapshot returns it, copied out of its columns.
+ */
+public record PublisherRow(String name, String email, String phone) {
+	static PublisherRow of(Publishers publisher) {
+		return new PublisherRow(publisher.getName(), publisher.getEmail(), publisher.getPhone());
+	}
+}
@@ -0,0 +1,21 @@
+package csulb.cecs323.snapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The changes made by one committed transaction, keyed by ISBN or name.  A null row means the object
+ * was deleted.
+ */
+final class SnapshotChanges {
+	final Map<String, PublisherRow> publishers = new HashMap<>();
+	final Map<String, AuthorRow> authors = new HashMap<>();
+	final Map<String, BookRow> books = new HashMap<>();
+
+	/** Set when the changes cannot be applied one row at a time, and the snapshot has to be reloaded. */
+	boolean reload;
+
+	boolean isEmpty() {
+		return publishers.isEmpty() && authors.isEmpty() && books.isEmpty() && !reload;
+	}
+}
@@ -0,0 +1,59 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Authoring_Entities;
+import csulb.cecs323.model.Books;
+import csulb.cecs323.model.Publishers;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.eclipse.persistence.sessions.changesets.ObjectChangeSet;
+import org.eclipse.persistence.sessions.changesets.UnitOfWorkChangeSet;
+
+/**
+ * Hands the changes of every committed unit of work to {@link CatalogSnapshots}: the objects it
+ * inserted or updated as they now are, from its change set, and the keys of the objects it deleted.
+ * <p>
+ * A bulk UPDATE or DELETE statement leaves nothing in the change set, so the unit of work that ran one
+ * is marked, and neither can a renamed author or publisher be applied row by row (its books refer to
+ * it by name).  Either asks for a reload.
+ */
+final class SnapshotListener extends SessionEventAdapter {
+	private static final String BULK_STATEMENT_EXECUTED = "jpabooks.snapshot.bulkStatementExecuted";
+
+	@Override
+	public void postExecuteQuery(SessionEvent event) {
+		if (event.getQuery().isModifyAllQuery()) event.getSession().setProperty(BULK_STATEMENT_EXECUTED, Boolean.TRUE);
+	}
+
+	@Override
+	public void postCommitUnitOfWork(SessionEvent event) {
+		if (!(event.getSession() instanceof UnitOfWorkImpl unitOfWork)) return;
+
+		SnapshotChanges changes = new SnapshotChanges();
+		changes.reload = unitOfWork.getProperty(BULK_STATEMENT_EXECUTED) != null;
+		unitOfWork.removeProperty(BULK_STATEMENT_EXECUTED);
+
+		UnitOfWorkChangeSet changeSet = unitOfWork.getUnitOfWorkChangeSet();
+		if (changeSet != null) {
+			for (Object key : changeSet.getAllChangeSets().keySet()) {
+				ObjectChangeSet objectChanges = (ObjectChangeSet) key;
+				if (!objectChanges.isNew() && (objectChanges.hasChangeFor("name") || objectChanges.hasChangeFor("ISBN"))) {
+					changes.reload = true;
+					continue;
+				}
+				Object object = changeSet.getUOWCloneForObjectChangeSet(objectChanges);
+				if (object instanceof Books book) changes.books.put(book.getISBN(), BookRow.of(book));
+				else if (object instanceof Authoring_Entities author) changes.authors.put(author.getName(), AuthorRow.of(author));
+				else if (object instanceof Publishers publisher) changes.publishers.put(publisher.getName(), PublisherRow.of(publisher));
+			}
+		}
+		// the change sets of deleted objects do not always lead back to the object
+		for (Object object : unitOfWork.getObjectsDeletedDuringCommit().keySet()) {
+			if (object instanceof Books book) changes.books.put(book.getISBN(), null);
+			else if (object instanceof Authoring_Entities author) changes.authors.put(author.getName(), null);
+			else if (object instanceof Publishers publisher) changes.publishers.put(publisher.getName(), null);
+		}
+
+		if (!changes.isEmpty()) CatalogSnapshots.apply(changes);
+	}
+}
@@ -0,0 +1,161 @@
+package csulb.cecs323.snapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One string value per row, all held in a single byte array: each value is its UTF-8 bytes preceded by
+ * their length, and the row only keeps the position of its value.  A column can be built deduplicated,
+ * so that rows with equal values share the same bytes.
+ * <p>
+ * A column of unique values can also be given a hash index, an open addressing table of row numbers
+ * ({@link #index()}), to find the row holding a value without decoding any of the others.
+ */
+final class StringColumn {
+	private static final int NULL = -1;
+
+	private final byte[] bytes;
+	private final int[] positions;
+
+	private StringColumn(byte[] bytes, int[] positions) {
+		this.bytes = bytes;
+		this.positions = positions;
+	}
+
+	int size() {
+		return positions.length;
+	}
+
+	String get(int row) {
+		int position = positions[row];
+		if (position == NULL) return null;
+		return new String(bytes, skipLength(position), lengthAt(position), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return The slots of a hash index over the rows, each holding a row number plus one or 0 when
+	 *         empty.  The table is kept at most half full.
+	 */
+	int[] index() {
+		int[] slots = new int[Math.max(2, Integer.highestOneBit(Math.max(1, positions.length) * 2 - 1) << 1)];
+		int mask = slots.length - 1;
+		for (int row = 0; row < positions.length; row++) {
+			if (positions[row] == NULL) continue;
+			int slot = hashAt(positions[row]) & mask;
+			while (slots[slot] != 0) slot = (slot + 1) & mask;
+			slots[slot] = row + 1;
+		}
+		return slots;
+	}
+
+	/**
+	 * @param slots  The hash index built by {@link #index()}.
+	 * @return       The row holding the value, or -1 when there is none.
+	 */
+	int find(int[] slots, String value) {
+		byte[] key = value.getBytes(StandardCharsets.UTF_8);
+		int mask = slots.length - 1;
+		for (int slot = hash(key, 0, key.length) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+			int row = slots[slot] - 1;
+			if (matches(positions[row], key)) return row;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The bytes taken by the column, roughly: its two arrays and their headers.
+	 */
+	long footprint() {
+		return 16L + bytes.length + 16L + 4L * positions.length;
+	}
+
+	private boolean matches(int position, byte[] key) {
+		int start = skipLength(position);
+		int length = lengthAt(position);
+		return length == key.length && Arrays.equals(bytes, start, start + length, key, 0, key.length);
+	}
+
+	private int hashAt(int position) {
+		int start = skipLength(position);
+		return hash(bytes, start, start + lengthAt(position));
+	}
+
+	private int lengthAt(int position) {
+		int length = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes[position++];
+			length |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		return length;
+	}
+
+	private int skipLength(int position) {
+		while (bytes[position++] < 0) {
+			// continuation bytes of the length
+		}
+		return position;
+	}
+
+	private static int hash(byte[] bytes, int from, int to) {
+		int h = 0;
+		for (int i = from; i < to; i++) h = 31 * h + bytes[i];
+		// spread the bits, the index only uses the low ones
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	static final class Builder {
+		private final Map<String, Integer> deduplicated;
+		private byte[] bytes = new byte[1024];
+		private int length;
+		private int[] positions = new int[64];
+		private int rows;
+
+		/**
+		 * @param deduplicate  Whether to store equal values once.  Only worth it for a column whose
+		 *                     values repeat, the lookup table costs more than it saves otherwise.
+		 */
+		Builder(boolean deduplicate) {
+			this.deduplicated = deduplicate ? new HashMap<>() : null;
+		}
+
+		void add(String value) {
+			if (rows == positions.length) positions = Arrays.copyOf(positions, rows * 2);
+			positions[rows++] = value == null ? NULL : position(value);
+		}
+
+		StringColumn build() {
+			return new StringColumn(Arrays.copyOf(bytes, length), Arrays.copyOf(positions, rows));
+		}
+
+		private int position(String value) {
+			if (deduplicated != null) {
+				Integer existing = deduplicated.get(value);
+				if (existing != null) return existing;
+			}
+
+			byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+			if (length + encoded.length + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length + 5));
+			}
+
+			int position = length;
+			int remaining = encoded.length;
+			while (remaining >= 0x80) {
+				bytes[length++] = (byte) (remaining | 0x80);
+				remaining >>>= 7;
+			}
+			bytes[length++] = (byte) remaining;
+			System.arraycopy(encoded, 0, bytes, length, encoded.length);
+			length += encoded.length;
+
+			if (deduplicated != null) deduplicated.put(value, position);
+			return position;
+		}
+	}
+}
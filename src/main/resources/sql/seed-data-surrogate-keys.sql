@@ -0,0 +1,4 @@
+INSERT INTO PUBLISHERS (ID, NAME, EMAIL, PHONE) VALUES (1, 'Publisher A', 'publisher@a.com', '(123) 456-7890')
+INSERT INTO AUTHORING_ENTITIES (ID, NAME, AUTHORING_ENTITY_TYPE, EMAIL, HEADWRITER, YEARFORMED) VALUES (1, 'Writing Group A', 'WritingGroup', 'writing@groupa.com', 'John Smith', 2008)
+INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_ID, PUBLISHER_ID) VALUES (9780134685991, 'The Best Book', 2010, 1, 1)
+UPDATE CATALOG_SEQUENCES SET SEQ_COUNT = 1
@@ -1,3 +1,3 @@
 INSERT INTO PUBLISHERS (NAME, EMAIL, PHONE) VALUES ('Publisher A', 'publisher@a.com', '(123) 456-7890')
 INSERT INTO AUTHORING_ENTITIES (NAME, AUTHORING_ENTITY_TYPE, EMAIL, HEADWRITER, YEARFORMED) VALUES ('Writing Group A', 'WritingGroup', 'writing@groupa.com', 'John Smith', 2008)
-INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_NAME, PUBLISHER_NAME) VALUES ('12345678987654321', 'The Best Book', 2010, 'Writing Group A', 'Publisher A')
\ No newline at end of file
+INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_NAME, PUBLISHER_NAME) VALUES (9780134685991, 'The Best Book', 2010, 'Writing Group A', 'Publisher A')
\ No newline at end of file
@@ -0,0 +1,95 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.BookSummary;
+import csulb.cecs323.model.Books;
+import csulb.cecs323.persistence.SqlStatementCounter;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The book listing and detail paths cost one statement each, however many books are shown, rather than
+ * one for the books plus one for the author and one for the publisher of every book.
+ */
+class BookFetchStatementsTest {
+	private static final int PAGE_SIZE = 25;
+
+	private static TestDatabase database;
+	private EntityManager manager;
+
+	@BeforeAll
+	static void createCatalog() throws InterruptedException {
+		database = TestDatabase.create();
+		new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(200, 40, 5, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+	}
+
+	@AfterAll
+	static void dropCatalog() {
+		database.close();
+	}
+
+	@BeforeEach
+	void startCounting() {
+		database.getFactory().getCache().evictAll();
+		manager = database.getFactory().createEntityManager();
+		database.getStatements().reset();
+	}
+
+	@Test
+	void pageOfBooksIsOneStatement() {
+		KeysetPager<BookSummary> pager = new KeysetPager<>(manager, BookSummary.class, "ReturnBookSummariesFirstPage",
+				"ReturnBookSummariesPageAfter", "ReturnBookSummariesPageBefore", BookSummary::isbn, PAGE_SIZE);
+
+		assertEquals(PAGE_SIZE, pager.first().size());
+		assertSelects(1);
+		assertEquals(PAGE_SIZE, pager.next().size());
+		assertSelects(2);
+		assertEquals(PAGE_SIZE, pager.previous().size());
+		assertSelects(3);
+		manager.close();
+	}
+
+	@Test
+	void bookDetailWithAuthorAndPublisherIsOneStatement() {
+		JPABooksProject project = new JPABooksProject(manager);
+		List<BookSummary> page = new KeysetPager<>(manager, BookSummary.class, "ReturnBookSummariesFirstPage",
+				"ReturnBookSummariesPageAfter", "ReturnBookSummariesPageBefore", BookSummary::isbn, PAGE_SIZE).first();
+		database.getStatements().reset();
+
+		for (BookSummary summary : page) {
+			Books book = project.getBookDetail(summary.isbn());
+			assertNotNull(book.getAuthor().getName());
+			assertNotNull(book.getPublisher().getName());
+		}
+		assertSelects(page.size());
+		manager.close();
+	}
+
+	@Test
+	void lazyNavigationCostsMoreThanAStatementPerBook() {
+		List<BookSummary> page = new KeysetPager<>(manager, BookSummary.class, "ReturnBookSummariesFirstPage",
+				"ReturnBookSummariesPageAfter", "ReturnBookSummariesPageBefore", BookSummary::isbn, PAGE_SIZE).first();
+		database.getStatements().reset();
+
+		// what the fetch joins avoid: the book, then its author and its publisher, each read on its own
+		for (BookSummary summary : page) {
+			Books book = manager.find(Books.class, summary.isbn());
+			assertNotNull(book.getAuthor().getName());
+			assertNotNull(book.getPublisher().getName());
+		}
+		assertTrue(database.getStatements().selects() > page.size());
+		manager.close();
+	}
+
+	private static void assertSelects(int expected) {
+		SqlStatementCounter statements = database.getStatements();
+		assertEquals(expected, statements.selects(), () -> String.join("\n", statements.statements()));
+	}
+}
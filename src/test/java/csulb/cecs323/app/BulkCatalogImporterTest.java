@@ -0,0 +1,81 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.Books;
+import csulb.cecs323.model.Isbn;
+import csulb.cecs323.persistence.SqlStatementCounter;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A books file is imported with one query per chunk for the authors its books name, rather than a
+ * find per book.
+ */
+class BulkCatalogImporterTest {
+	private static final int AUTHORS = 10;
+	private static final int BOOKS = 300;
+	private static final int CHUNK_SIZE = 100;
+
+	private TestDatabase database;
+
+	@TempDir
+	Path directory;
+
+	@BeforeEach
+	void createDatabase() {
+		database = TestDatabase.create();
+	}
+
+	@AfterEach
+	void dropDatabase() {
+		database.close();
+	}
+
+	@Test
+	void booksChunkReadsItsAuthorsInOneStatement() throws IOException {
+		Path authorsAndPublishers = Files.createDirectory(directory.resolve("authors"));
+		List<String> publishers = new ArrayList<>(List.of("name,email,phone"));
+		publishers.add("Import Press,press@example.com,555-0100");
+		Files.write(authorsAndPublishers.resolve("publishers.csv"), publishers);
+		List<String> authors = new ArrayList<>(List.of("name,type,email"));
+		for (int i = 0; i < AUTHORS; i++) authors.add("Import Author " + i + ",IndividualAuthor,author" + i + "@example.com");
+		Files.write(authorsAndPublishers.resolve("authors.csv"), authors);
+
+		Path bookFiles = Files.createDirectory(directory.resolve("books"));
+		List<String> books = new ArrayList<>(List.of("isbn,title,yearPublished,author,publisher"));
+		for (int i = 0; i < BOOKS; i++) {
+			books.add(Isbn.withCheckDigit(979_000_000_000L + i) + ",Imported Book " + i + ",2001,Import Author " + i % AUTHORS + ",Import Press");
+		}
+		Files.write(bookFiles.resolve("books.csv"), books);
+
+		BulkCatalogImporter importer = new BulkCatalogImporter(database.getFactory(), CHUNK_SIZE);
+		importer.importDirectory(authorsAndPublishers);
+		database.getFactory().getCache().evictAll();
+		database.getStatements().reset();
+
+		assertEquals(BOOKS, importer.importDirectory(bookFiles));
+		SqlStatementCounter statements = database.getStatements();
+		// the authors of each chunk, and the one publisher, read once into the shared cache by its reference
+		assertEquals(BOOKS / CHUNK_SIZE + 1, statements.selects(), () -> String.join("\n", statements.statements()));
+
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			Books book = manager.find(Books.class, Isbn.format(Isbn.withCheckDigit(979_000_000_000L)));
+			assertEquals("Import Author 0", book.getAuthor().getName());
+			assertEquals("Import Press", book.getPublisher().getName());
+		} finally {
+			manager.close();
+		}
+	}
+}
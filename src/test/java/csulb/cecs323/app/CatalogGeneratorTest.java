@@ -0,0 +1,57 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The same seed and shape give the same catalog however many workers write it, and another seed gives
+ * another catalog.
+ */
+class CatalogGeneratorTest {
+	// more than one block of books, so that the workers really do split them
+	private static final CatalogGenerator.Shape SHAPE = new CatalogGenerator.Shape(25_000, 500, 20, 1.1, 1.1, 1990, 2020, 0.5, 4);
+	private static final CatalogGenerator.Shape SMALL = new CatalogGenerator.Shape(1000, 100, 5, 1.1, 1.1, 1990, 2020, 0.5, 4);
+
+	@Test
+	void sameSeedGivesTheSameCatalogWithAnyNumberOfWorkers() throws InterruptedException {
+		List<String> alone = generate(SHAPE, 323, 1);
+		// the seed data's books are there as well
+		assertTrue(alone.stream().filter(row -> row.startsWith("book")).count() >= SHAPE.books());
+		assertEquals(alone, generate(SHAPE, 323, 3));
+	}
+
+	@Test
+	void otherSeedGivesAnotherCatalog() throws InterruptedException {
+		assertNotEquals(generate(SMALL, 323, 1), generate(SMALL, 324, 1));
+	}
+
+	/**
+	 * @return Every generated book, with its author and publisher, and every team membership, as text.
+	 */
+	private static List<String> generate(CatalogGenerator.Shape shape, long seed, int workers) throws InterruptedException {
+		try (TestDatabase database = TestDatabase.create()) {
+			new CatalogGenerator(database.getFactory(), shape, seed, workers).generate();
+			EntityManager manager = database.getFactory().createEntityManager();
+			try {
+				List<String> rows = new ArrayList<>();
+				for (Object[] book : manager.createNamedQuery("ExportBooks", Object[].class).getResultList()) {
+					rows.add("book " + Arrays.toString(book));
+				}
+				for (Object[] member : manager.createNamedQuery("ReturnTeamMemberNames", Object[].class).getResultList()) {
+					rows.add("member " + Arrays.toString(member));
+				}
+				rows.sort(null);
+				return rows;
+			} finally {
+				manager.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.persistence.TestDatabase;
+import org.eclipse.persistence.exceptions.DatabaseException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.PersistenceException;
+import javax.persistence.RollbackException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogHttpServiceTest {
+	private TestDatabase database;
+	private CatalogHttpService service;
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void startService() throws IOException {
+		database = TestDatabase.create();
+		service = new CatalogHttpService(database.getFactory(), 0);
+		service.start();
+	}
+
+	@AfterEach
+	void stopService() {
+		service.stop();
+		database.close();
+	}
+
+	@Test
+	void duplicateKeyIsAConflict() throws Exception {
+		String publisher = "{\"name\": \"Publisher B\", \"email\": \"publisher@b.com\", \"phone\": \"(555) 000-0001\"}";
+		assertEquals(201, post("/publishers", publisher).statusCode());
+		assertEquals(409, post("/publishers", publisher).statusCode());
+	}
+
+	@Test
+	void badIsbnIsABadRequest() throws Exception {
+		assertEquals(400, get("/books/978-0-13-468599-2").statusCode());
+		assertEquals(200, get("/books/0-13-468599-7").statusCode());
+		assertEquals(404, get("/books/9780306406157").statusCode());
+	}
+
+	@Test
+	void onlyConstraintAndLockFailuresAreConflicts() {
+		assertTrue(CatalogHttpService.isConflict(new RollbackException(DatabaseException.sqlException(
+				new SQLIntegrityConstraintViolationException("duplicate key", "23505")))));
+		assertTrue(CatalogHttpService.isConflict(new javax.persistence.OptimisticLockException("stale")));
+
+		assertFalse(CatalogHttpService.isConflict(new PersistenceException(DatabaseException.sqlException(
+				new SQLTransientConnectionException("connection refused", "08001")))));
+		assertFalse(CatalogHttpService.isConflict(new PersistenceException(DatabaseException.sqlException(
+				new SQLException("lock timeout", "40XL1")))));
+		assertFalse(CatalogHttpService.isConflict(new PersistenceException("query failed")));
+	}
+
+	@Test
+	void requestThreadsAreBounded() {
+		ExecutorService executor = CatalogHttpService.newRequestExecutor(3);
+		try {
+			assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + service.getPort() + path);
+	}
+}
@@ -0,0 +1,100 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.Publishers;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * When an operation of a batch fails, the batch falls back to committing each operation alone, so only
+ * the failing one reports an error and the others are committed.
+ */
+// an operation left uncompleted would otherwise hang the build
+@Timeout(60)
+class GroupCommitQueueTest {
+	private static final int OPERATIONS = 10;
+
+	private TestDatabase database;
+	private GroupCommitQueue queue;
+
+	@BeforeEach
+	void createQueue() {
+		database = TestDatabase.create();
+		// a long window, so that every operation submitted by the test lands in the same batch
+		queue = new GroupCommitQueue(database.getFactory(), OPERATIONS, 2000);
+	}
+
+	@AfterEach
+	void closeQueue() {
+		queue.close();
+		database.close();
+	}
+
+	@Test
+	void failingOperationDoesNotFailTheBatch() throws Exception {
+		List<CompletableFuture<Publishers>> results = new ArrayList<>();
+		for (int i = 0; i < OPERATIONS - 1; i++) results.add(queue.submit(addPublisher("Group Press " + i)));
+		// the same name again breaks the primary key, but only when it is committed
+		CompletableFuture<Publishers> duplicate = queue.submit(addPublisher("Group Press 0"));
+
+		ExecutionException failure = assertThrows(ExecutionException.class, duplicate::get);
+		assertTrue(CatalogHttpService.isConflict(failure.getCause()), () -> failure.getCause().toString());
+		for (int i = 0; i < results.size(); i++) assertEquals("Group Press " + i, results.get(i).get().getName());
+		assertEquals(OPERATIONS - 1, countPublishers("Group Press %"));
+	}
+
+	@Test
+	void errorInAnOperationCompletesItsFutureAndKeepsTheQueueRunning() throws Exception {
+		CompletableFuture<Publishers> before = queue.submit(addPublisher("Error Press 1"));
+		CompletableFuture<Publishers> failing = queue.submit(service -> {
+			throw new AssertionError("broken operation");
+		});
+		CompletableFuture<Publishers> after = queue.submit(addPublisher("Error Press 2"));
+
+		ExecutionException failure = assertThrows(ExecutionException.class, failing::get);
+		assertTrue(failure.getCause() instanceof AssertionError, () -> failure.getCause().toString());
+		assertNotNull(before.get());
+		assertNotNull(after.get());
+
+		// the committer is still there for the next batch
+		assertEquals("Error Press 3", queue.execute(addPublisher("Error Press 3")).getName());
+		assertEquals(3, countPublishers("Error Press %"));
+	}
+
+	@Test
+	void closedQueueRefusesOperations() {
+		CompletableFuture<Publishers> queued = queue.submit(addPublisher("Closing Press"));
+		queue.close();
+
+		assertTrue(queued.isDone());
+		assertThrows(IllegalStateException.class, () -> queue.submit(addPublisher("Late Press")));
+	}
+
+	private static Function<CatalogService, Publishers> addPublisher(String name) {
+		// email and phone are unique too, so they are made from the name
+		return service -> service.addPublisher(Map.of("name", name, "email", name.replace(' ', '.') + "@example.com",
+				"phone", "555-" + Integer.toHexString(name.hashCode())));
+	}
+
+	private long countPublishers(String pattern) {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			return manager.createQuery("SELECT COUNT(p) FROM Publishers p WHERE p.name LIKE :pattern", Long.class)
+					.setParameter("pattern", pattern).getSingleResult();
+		} finally {
+			manager.close();
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.BookSummary;
+import csulb.cecs323.model.YearBookCount;
+import csulb.cecs323.persistence.SqlStatementCounter;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paging forwards and backwards visits every row once, in key order, and the first page is read
+ * without a key.
+ */
+class KeysetPagerTest {
+	private static final int PAGE_SIZE = 7;
+
+	private static TestDatabase database;
+	private static List<String> isbns;
+	private EntityManager manager;
+
+	@BeforeAll
+	static void createCatalog() throws InterruptedException {
+		database = TestDatabase.create();
+		new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(100, 20, 3, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			isbns = manager.createQuery("SELECT b.ISBN FROM Books b ORDER BY b.ISBN", String.class).getResultList();
+		} finally {
+			manager.close();
+		}
+	}
+
+	@AfterAll
+	static void dropCatalog() {
+		database.close();
+	}
+
+	@BeforeEach
+	void createManager() {
+		manager = database.getFactory().createEntityManager();
+	}
+
+	@AfterEach
+	void closeManager() {
+		manager.close();
+	}
+
+	@Test
+	void forwardsVisitsEveryRowInOrder() {
+		KeysetPager<BookSummary> pager = bookPager();
+		assertFalse(pager.isEmpty());
+		List<String> visited = new ArrayList<>();
+		pager.first().forEach(book -> visited.add(book.isbn()));
+		assertFalse(pager.hasPrevious());
+		while (pager.hasNext()) {
+			List<BookSummary> page = pager.next();
+			assertTrue(page.size() <= PAGE_SIZE);
+			page.forEach(book -> visited.add(book.isbn()));
+		}
+		assertEquals(isbns, visited);
+		assertEquals(isbns.size() % PAGE_SIZE == 0 ? PAGE_SIZE : isbns.size() % PAGE_SIZE, pager.getPage().size());
+	}
+
+	@Test
+	void backwardsReturnsTheSamePages() {
+		KeysetPager<BookSummary> pager = bookPager();
+		List<List<BookSummary>> forwards = new ArrayList<>();
+		forwards.add(pager.first());
+		while (pager.hasNext()) forwards.add(pager.next());
+
+		for (int i = forwards.size() - 2; i >= 0; i--) {
+			assertTrue(pager.hasPrevious());
+			assertEquals(forwards.get(i), pager.previous());
+		}
+		assertEquals(isbns.subList(0, PAGE_SIZE), pager.getPage().stream().map(BookSummary::isbn).toList());
+		assertFalse(pager.hasPrevious());
+	}
+
+	@Test
+	void firstPageIsReadWithoutAKey() {
+		SqlStatementCounter statements = database.getStatements();
+		statements.reset();
+		bookPager().first();
+		assertEquals(1, statements.selects());
+		assertFalse(statements.statements().get(0).contains("WHERE"), statements.statements().get(0));
+	}
+
+	@Test
+	void numericKeysPageLikeStrings() {
+		KeysetPager<YearBookCount> pager = new CatalogStatistics(manager).booksPerYear(5);
+		List<Integer> years = new ArrayList<>();
+		pager.first().forEach(count -> years.add(count.year()));
+		while (pager.hasNext()) pager.next().forEach(count -> years.add(count.year()));
+
+		List<Integer> expected = manager.createQuery("SELECT DISTINCT b.yearPublished FROM Books b ORDER BY b.yearPublished", Integer.class)
+				.getResultList();
+		assertEquals(expected, years);
+	}
+
+	private KeysetPager<BookSummary> bookPager() {
+		return new KeysetPager<>(manager, BookSummary.class, "ReturnBookSummariesFirstPage",
+				"ReturnBookSummariesPageAfter", "ReturnBookSummariesPageBefore", BookSummary::isbn, PAGE_SIZE);
+	}
+}
@@ -0,0 +1,42 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * On a catalog large enough for Derby's optimizer to weigh its choices, the lookups of books by title,
+ * year, author and publisher scan the indexes declared for them in Books, and the team roster lookups
+ * scan an index rather than the whole table.
+ */
+class QueryPlanReportTest {
+	private static final Map<String, String> BOOK_INDEXES = Map.of(
+			"Books by title", "BOOKS_TITLE_IDX",
+			"Books by year", "BOOKS_YEAR_IDX",
+			"Books by author", "BOOKS_AUTHOR_IDX",
+			"Books by publisher", "BOOKS_PUBLISHER_IDX");
+
+	@Test
+	void lookupsUseTheirIndexes() throws Exception {
+		try (TestDatabase database = TestDatabase.create()) {
+			new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(5000, 500, 20, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+			Map<String, QueryPlanReport.Plan> plans = new QueryPlanReport(database.getFactory()).plans().stream()
+					.collect(Collectors.toMap(QueryPlanReport.Plan::lookup, Function.identity()));
+
+			for (Map.Entry<String, String> lookup : BOOK_INDEXES.entrySet()) {
+				assertEquals(lookup.getValue(), plans.get(lookup.getKey()).index(), lookup.getKey());
+			}
+			// the primary key of the join table starts with the team, so Derby may take it for the members of a
+			// team instead of AD_HOC_TEAMS_MEMBER_TEAM_IDX
+			for (String lookup : List.of("Members of a team", "Teams of an author")) {
+				assertTrue(plans.get(lookup).isIndexed(), lookup);
+			}
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.model.AdHocTeam;
+import csulb.cecs323.model.IndividualAuthor;
+import csulb.cecs323.persistence.SqlStatementCounter;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The team rosters read their members in batches: a page of teams costs one statement for the teams and
+ * one for all of their members, and reading every team or every individual author costs one statement
+ * plus one per batch of 100, rather than one per team or author.
+ */
+class RosterFetchStatementsTest {
+	private static final int PAGE_SIZE = 25;
+	private static final int BATCH_SIZE = 100;
+
+	private static TestDatabase database;
+	private EntityManager manager;
+
+	@BeforeAll
+	static void createCatalog() throws InterruptedException {
+		database = TestDatabase.create();
+		new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(100, 1000, 5, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+	}
+
+	@AfterAll
+	static void dropCatalog() {
+		database.close();
+	}
+
+	@BeforeEach
+	void startCounting() {
+		database.getFactory().getCache().evictAll();
+		manager = database.getFactory().createEntityManager();
+		database.getStatements().reset();
+	}
+
+	@AfterEach
+	void closeManager() {
+		manager.close();
+	}
+
+	@Test
+	void pageOfRostersIsTwoStatements() {
+		KeysetPager<AdHocTeam> pager = new KeysetPager<>(manager, AdHocTeam.class, "ReturnAdHocTeamRosterFirstPage",
+				"ReturnAdHocTeamRosterPageAfter", "ReturnAdHocTeamRosterPageBefore", AdHocTeam::getName, PAGE_SIZE);
+
+		assertEquals(PAGE_SIZE, countMembers(pager.first()));
+		assertSelects(2);
+		assertEquals(PAGE_SIZE, countMembers(pager.next()));
+		assertSelects(4);
+	}
+
+	@Test
+	void everyTeamWithItsMembersIsReadInBatches() {
+		List<AdHocTeam> teams = manager.createNamedQuery("ReturnAllAdHocTeams", AdHocTeam.class).getResultList();
+		assertTrue(teams.size() > BATCH_SIZE);
+		countMembers(teams);
+		assertSelects(1 + batches(teams.size()));
+	}
+
+	@Test
+	void everyIndividualAuthorWithTheirTeamsIsReadInBatches() {
+		List<IndividualAuthor> authors = manager.createNamedQuery("ReturnAllIndividualAuthors", IndividualAuthor.class).getResultList();
+		assertTrue(authors.size() > BATCH_SIZE);
+		assertTrue(authors.stream().filter(author -> !author.getTeamMemberships().isEmpty()).count() > 0);
+		assertSelects(1 + batches(authors.size()));
+	}
+
+	/**
+	 * Touch the members of every team, as the roster screen does.
+	 * @return The number of teams.
+	 */
+	private static int countMembers(List<AdHocTeam> teams) {
+		for (AdHocTeam team : teams) assertFalse(team.getTeamMembers().isEmpty(), team.getName());
+		return teams.size();
+	}
+
+	private static int batches(int rows) {
+		return (rows + BATCH_SIZE - 1) / BATCH_SIZE;
+	}
+
+	private static void assertSelects(int expected) {
+		SqlStatementCounter statements = database.getStatements();
+		assertEquals(expected, statements.selects(), () -> String.join("\n", statements.statements()));
+	}
+}
@@ -0,0 +1,101 @@
+package csulb.cecs323.app;
+
+import csulb.cecs323.persistence.TestDatabase;
+import csulb.cecs323.search.CatalogSearch;
+import csulb.cecs323.search.SearchHit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The search index only changes when a transaction commits, for books written one at a time and for
+ * the bulk operations alike; a transaction that rolls back, even after flushing, leaves it as it was.
+ */
+class SearchIndexTransactionTest {
+	private static TestDatabase database;
+	private static String publisher;
+	private static String author;
+	private EntityManager manager;
+
+	@BeforeAll
+	static void createCatalog() throws InterruptedException {
+		database = TestDatabase.create();
+		new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(50, 20, 3, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			publisher = manager.createNamedQuery("ReturnPublisherNames", String.class).setMaxResults(1).getSingleResult();
+			author = manager.createQuery("SELECT a.name FROM IndividualAuthor a ORDER BY a.name", String.class)
+					.setMaxResults(1).getSingleResult();
+		} finally {
+			manager.close();
+		}
+		CatalogSearch.rebuild(database.getFactory(), 1);
+	}
+
+	@AfterAll
+	static void dropCatalog() {
+		database.close();
+	}
+
+	@BeforeEach
+	void createManager() {
+		manager = database.getFactory().createEntityManager();
+	}
+
+	@AfterEach
+	void closeManager() {
+		if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+		manager.close();
+	}
+
+	@Test
+	void bookIsIndexedOnlyWhenCommitted() {
+		manager.getTransaction().begin();
+		new CatalogService(manager).addBook(book("9780306406157", "Quixotic Rollback"));
+		manager.flush();
+		manager.getTransaction().rollback();
+		assertTrue(search("Quixotic").isEmpty());
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).addBook(book("9780306406157", "Quixotic Commit"));
+		manager.getTransaction().commit();
+		assertEquals(List.of("9780306406157"), search("Quixotic").stream().map(SearchHit::isbn).toList());
+	}
+
+	@Test
+	void bulkDeleteReachesTheIndexOnlyWhenCommitted() {
+		assertFalse(search(publisher).isEmpty());
+
+		manager.getTransaction().begin();
+		assertTrue(new BulkBookOperations(manager).deleteBooksByPublisher(publisher) > 0);
+		manager.getTransaction().rollback();
+		assertFalse(search(publisher).isEmpty());
+
+		// the next transaction of the same manager does not pick up the rolled back change
+		manager.getTransaction().begin();
+		new CatalogService(manager).addBook(book("9781861972712", "Unrelated Commit"));
+		manager.getTransaction().commit();
+		assertFalse(search(publisher).isEmpty());
+
+		manager.getTransaction().begin();
+		new BulkBookOperations(manager).deleteBooksByPublisher(publisher);
+		manager.getTransaction().commit();
+		assertTrue(search(publisher).isEmpty());
+	}
+
+	private static Map<String, String> book(String isbn, String title) {
+		return Map.of("isbn", isbn, "title", title, "yearPublished", "2001", "author", author, "publisher", publisher);
+	}
+
+	private static List<SearchHit> search(String query) {
+		return CatalogSearch.search(query, 1000).stream().filter(hit -> hit.publisher().equals(publisher)).toList();
+	}
+}
@@ -0,0 +1,64 @@
+package csulb.cecs323.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The draws are the same for the same seed, and come up as often as the exponent says each rank should.
+ */
+class ZipfDistributionTest {
+	private static final int DRAWS = 200_000;
+
+	@Test
+	void sameSeedDrawsTheSameRanks() {
+		ZipfDistribution zipf = new ZipfDistribution(1_000_000, 1.1);
+		SplittableRandom first = new SplittableRandom(323);
+		SplittableRandom second = new SplittableRandom(323);
+		for (int i = 0; i < 10_000; i++) assertEquals(zipf.sample(first), zipf.sample(second));
+	}
+
+	@Test
+	void ranksFollowTheExponent() {
+		int n = 100;
+		double exponent = 1.1;
+		long[] counts = draw(new ZipfDistribution(n, exponent), n);
+
+		double normalization = 0;
+		for (int rank = 1; rank <= n; rank++) normalization += Math.pow(rank, -exponent);
+		for (int rank : new int[] {1, 2, 5, 20, 100}) {
+			double expected = DRAWS * Math.pow(rank, -exponent) / normalization;
+			// well within five standard deviations of the binomial count
+			assertEquals(expected, counts[rank], 5 * Math.sqrt(expected) + 1, "rank " + rank);
+		}
+	}
+
+	@Test
+	void exponentZeroIsUniform() {
+		int n = 10;
+		long[] counts = draw(new ZipfDistribution(n, 0), n);
+		for (int rank = 1; rank <= n; rank++) assertEquals(DRAWS / (double) n, counts[rank], DRAWS * 0.01, "rank " + rank);
+	}
+
+	@Test
+	void rejectsBadParameters() {
+		assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1));
+		assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(10, -0.5));
+	}
+
+	/**
+	 * @return How often each rank from 1 to n was drawn, indexed by rank.
+	 */
+	private static long[] draw(ZipfDistribution zipf, int n) {
+		SplittableRandom random = new SplittableRandom(1);
+		long[] counts = new long[n + 1];
+		for (int i = 0; i < DRAWS; i++) {
+			long rank = zipf.sample(random);
+			assertTrue(rank >= 1 && rank <= n, () -> "rank " + rank);
+			counts[(int) rank]++;
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,50 @@
+package csulb.cecs323.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every way of writing an ISBN comes down to the one canonical ISBN-13, and anything else is rejected,
+ * by the converter as well.
+ */
+class IsbnTest {
+
+	@Test
+	void everyFormOfAnIsbnNormalizesToItsIsbn13() {
+		for (String isbn : new String[] {"978-0-13-468599-1", "9780134685991", "978 0 13 468599 1", "0-13-468599-7", "0134685997"}) {
+			assertEquals("9780134685991", Isbn.normalize(isbn), isbn);
+		}
+		assertEquals("9780306406157", Isbn.normalize("0-306-40615-2"));
+		// an X check digit stands for 10
+		assertEquals("9780804429573", Isbn.normalize("0-8044-2957-X"));
+		assertEquals("9780804429573", Isbn.normalize("080442957x"));
+		assertEquals("9791234567896", Isbn.normalize("979-1-2345-6789-6"));
+	}
+
+	@Test
+	void malformedIsbnsAreRejected() {
+		for (String text : new String[] {null, "", "   ", "978013468599", "97801346859912", "9780134685992", "0134685996",
+				"9770134685992", "97801346X5991", "X134685997", "978-0-13-468599-a"}) {
+			assertThrows(IllegalArgumentException.class, () -> Isbn.parse(text), String.valueOf(text));
+			assertFalse(Isbn.isValid(text), String.valueOf(text));
+		}
+	}
+
+	@Test
+	void checkDigitIsComputedFromTheFirstTwelveDigits() {
+		assertEquals(9780134685991L, Isbn.withCheckDigit(978013468599L));
+		assertEquals("9780134685991", Isbn.format(Isbn.parse("0-13-468599-7")));
+	}
+
+	@Test
+	void converterStoresTheIsbn13AsANumberAndRejectsBlanks() {
+		IsbnConverter converter = new IsbnConverter();
+		assertEquals(9780134685991L, converter.convertToDatabaseColumn("0-13-468599-7"));
+		assertEquals("9780134685991", converter.convertToEntityAttribute(9780134685991L));
+		assertNull(converter.convertToDatabaseColumn(null));
+		assertNull(converter.convertToEntityAttribute(null));
+		assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn(""));
+		assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn(" "));
+	}
+}
@@ -0,0 +1,108 @@
+package csulb.cecs323.persistence;
+
+import csulb.cecs323.model.Books;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A persistent database whose ISBNs are still text is converted when it starts, once, and not at all
+ * while one of its ISBNs cannot be converted.
+ */
+class IsbnKeyMigrationTest {
+	private static final String SEED = "sql/seed-data.sql";
+	private static final String MIGRATIONS = "sql/migrations";
+
+	@Test
+	void textIsbnsBecomeNumbersOnce() throws SQLException {
+		try (TestDatabase database = TestDatabase.create()) {
+			storeIsbnsAsText(database, "0-306-40615-2", "978 1 86197 271 2");
+
+			assertEquals(IsbnKeyMigration.VERSION, migrate(database));
+			assertEquals(Types.BIGINT, isbnType(database));
+			// the second start finds it applied
+			assertEquals(IsbnKeyMigration.VERSION, migrate(database));
+
+			database.getFactory().getCache().evictAll();
+			EntityManager manager = database.getFactory().createEntityManager();
+			try {
+				assertEquals("Book 0", manager.find(Books.class, "9780306406157").getTitle());
+				assertEquals("Book 1", manager.find(Books.class, "9781861972712").getTitle());
+			} finally {
+				manager.close();
+			}
+		}
+	}
+
+	@Test
+	void invalidOrDuplicateIsbnsChangeNothing() throws SQLException {
+		try (TestDatabase database = TestDatabase.create()) {
+			storeIsbnsAsText(database, "0-306-40615-2", "9780306406157", "not an isbn");
+
+			IllegalStateException failure = assertThrows(IllegalStateException.class, () -> migrate(database));
+			assertTrue(failure.getMessage().startsWith("2 of the stored ISBNs"), failure.getMessage());
+			assertEquals(Types.VARCHAR, isbnType(database));
+			assertEquals(3, update(database, "UPDATE BOOKS SET TITLE = TITLE"));
+		}
+	}
+
+	private static int migrate(TestDatabase database) {
+		return new SchemaMigrator(database.getFactory(), SEED, MIGRATIONS,
+				Map.of(IsbnKeyMigration.VERSION, new IsbnKeyMigration())).migrate();
+	}
+
+	/**
+	 * Turn the books table back into the one from before the ISBNs were numbers, holding a book for each
+	 * of the ISBNs as typed.
+	 */
+	private static void storeIsbnsAsText(TestDatabase database, String... isbns) throws SQLException {
+		update(database, "DELETE FROM BOOKS");
+		update(database, "ALTER TABLE BOOKS DROP PRIMARY KEY");
+		update(database, "ALTER TABLE BOOKS DROP COLUMN ISBN");
+		update(database, "ALTER TABLE BOOKS ADD COLUMN ISBN VARCHAR(20)");
+		update(database, "ALTER TABLE BOOKS ALTER COLUMN ISBN NOT NULL");
+		update(database, "ALTER TABLE BOOKS ADD PRIMARY KEY (ISBN)");
+		for (int i = 0; i < isbns.length; i++) {
+			update(database, "INSERT INTO BOOKS (ISBN, TITLE, YEAR_PUBLISHED, AUTHORING_ENTITY_NAME, PUBLISHER_NAME) "
+					+ "VALUES ('" + isbns[i] + "', 'Book " + i + "', 2010, 'Writing Group A', 'Publisher A')");
+		}
+	}
+
+	private static int update(TestDatabase database, String sql) throws SQLException {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			int rows;
+			try (Statement statement = manager.unwrap(Connection.class).createStatement()) {
+				rows = statement.executeUpdate(sql);
+			}
+			manager.getTransaction().commit();
+			return rows;
+		} finally {
+			if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private static int isbnType(TestDatabase database) throws SQLException {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			try (ResultSet columns = manager.unwrap(Connection.class).getMetaData().getColumns(null, null, "BOOKS", "ISBN")) {
+				assertTrue(columns.next());
+				return columns.getInt("DATA_TYPE");
+			}
+		} finally {
+			manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package csulb.cecs323.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+	private static final String SEED = "sql/seed-data.sql";
+	private static final String MIGRATIONS = "sql/test-migrations";
+
+	@Test
+	void existingTablesGetTheLaterScriptsOnce() throws SQLException {
+		try (TestDatabase database = TestDatabase.create()) {
+			assertEquals(2, new SchemaMigrator(database.getFactory(), SEED, MIGRATIONS).migrate());
+			assertTrue(hasColumn(database, "PUBLISHERS", "WEBSITE"));
+
+			// the second start finds everything applied
+			assertEquals(2, new SchemaMigrator(database.getFactory(), SEED, MIGRATIONS).migrate());
+			assertEquals(2, count(database, "SELECT COUNT(*) FROM SCHEMA_VERSION"));
+			assertEquals(1, count(database, "SELECT COUNT(*) FROM PUBLISHERS"));
+		}
+	}
+
+	@Test
+	void generatedBaselineRecordsTheScriptsWithoutRunningThem() throws SQLException {
+		try (TestDatabase database = TestDatabase.create(Map.of(
+				"javax.persistence.schema-generation.database.action", "none",
+				"javax.persistence.sql-load-script-source", ""))) {
+			assertEquals(2, new SchemaMigrator(database.getFactory(), SEED, MIGRATIONS).migrate());
+
+			assertFalse(hasColumn(database, "PUBLISHERS", "WEBSITE"));
+			assertEquals(2, count(database, "SELECT COUNT(*) FROM SCHEMA_VERSION"));
+			// the seed data is loaded with the baseline
+			assertEquals(1, count(database, "SELECT COUNT(*) FROM BOOKS"));
+		}
+	}
+
+	private static boolean hasColumn(TestDatabase database, String table, String column) throws SQLException {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			try (ResultSet columns = manager.unwrap(Connection.class).getMetaData().getColumns(null, null, table, column)) {
+				return columns.next();
+			}
+		} finally {
+			manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+
+	private static int count(TestDatabase database, String sql) throws SQLException {
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			manager.getTransaction().begin();
+			try (Statement statement = manager.unwrap(Connection.class).createStatement();
+			     ResultSet rows = statement.executeQuery(sql)) {
+				rows.next();
+				return rows.getInt(1);
+			}
+		} finally {
+			manager.getTransaction().rollback();
+			manager.close();
+		}
+	}
+}
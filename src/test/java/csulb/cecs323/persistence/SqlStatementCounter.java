@@ -0,0 +1,45 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.logging.DefaultSessionLog;
+import org.eclipse.persistence.logging.SessionLog;
+import org.eclipse.persistence.logging.SessionLogEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A session log that writes nothing, but counts the SQL statements EclipseLink sends to the database,
+ * which it logs in the sql category.  Only the statements are listened for, every other category is
+ * left at SEVERE.
+ */
+public class SqlStatementCounter extends DefaultSessionLog {
+	private final List<String> statements = new ArrayList<>();
+
+	public SqlStatementCounter() {
+		setLevel(SessionLog.SEVERE);
+		setLevel(SessionLog.FINE, SessionLog.SQL);
+	}
+
+	@Override
+	public synchronized void log(SessionLogEntry entry) {
+		if (SessionLog.SQL.equals(entry.getNameSpace()) && entry.getMessage() != null) statements.add(entry.getMessage().trim());
+	}
+
+	/**
+	 * @return The SELECT statements sent since the last reset.
+	 */
+	public synchronized int selects() {
+		return (int) statements.stream().filter(sql -> sql.startsWith("SELECT")).count();
+	}
+
+	/**
+	 * @return Every statement sent since the last reset, for failure messages.
+	 */
+	public synchronized List<String> statements() {
+		return new ArrayList<>(statements);
+	}
+
+	public synchronized void reset() {
+		statements.clear();
+	}
+}
@@ -0,0 +1,66 @@
+package csulb.cecs323.persistence;
+
+import org.eclipse.persistence.jpa.JpaHelper;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fresh in-memory Derby database for one test, created with the schema and seed data through
+ * {@link PersistenceSettings} on the memory profile, as the application would create it.  The SQL
+ * statements its factory sends are counted by a {@link SqlStatementCounter}.
+ */
+public final class TestDatabase implements AutoCloseable {
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+
+	private final String name;
+	private final EntityManagerFactory factory;
+	private final SqlStatementCounter statements = new SqlStatementCounter();
+
+	private TestDatabase(Map<String, ?> extra) {
+		this.name = "test" + DATABASES.incrementAndGet();
+		Map<String, Object> properties = new HashMap<>(extra);
+		properties.put("javax.persistence.jdbc.url", "jdbc:derby:memory:" + name + ";create=true");
+		this.factory = PersistenceSettings.createEntityManagerFactory(RuntimeProfile.MEMORY, properties);
+		JpaHelper.getServerSession(factory).setSessionLog(statements);
+	}
+
+	public static TestDatabase create() {
+		return new TestDatabase(Map.of());
+	}
+
+	/**
+	 * @param extra  Further persistence unit properties for the factory.
+	 */
+	public static TestDatabase create(Map<String, ?> extra) {
+		return new TestDatabase(extra);
+	}
+
+	public EntityManagerFactory getFactory() {
+		return factory;
+	}
+
+	public SqlStatementCounter getStatements() {
+		return statements;
+	}
+
+	/**
+	 * Close the factory and throw the database away.
+	 */
+	@Override
+	public void close() {
+		factory.close();
+		try {
+			DriverManager.getConnection("jdbc:derby:memory:" + name + ";drop=true").close();
+		} catch (SQLNonTransientConnectionException expected) {
+			// Derby reports a successful drop with this exception
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
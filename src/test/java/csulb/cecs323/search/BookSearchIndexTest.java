@@ -0,0 +1,81 @@
+package csulb.cecs323.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books are ranked by how well each word of the query matched and in which field, title first, and a
+ * word with a typo still finds the titles it was meant for.
+ */
+class BookSearchIndexTest {
+	private BookSearchIndex index;
+
+	@BeforeEach
+	void fillIndex() {
+		index = new BookSearchIndex();
+		index.put("1", "Database Systems", "Ann Smith", "Acme Press", 2001);
+		index.put("2", "Database Design", "Systems Group", "Acme Press", 2002);
+		index.put("3", "Systems Programming", "Bo Lee", "Database Press", 2003);
+		index.put("4", "Database Systems and Their Design", "Cy Young", "Acme Press", 2004);
+		index.put("5", "Cooking for One", "Émile Zola", "Kitchen Press", 2005);
+		index.put("6", "Distributed Systems", "Ann Smith", "Acme Press", 2006);
+	}
+
+	@Test
+	void wordsInTheTitleRankFirst() {
+		// both words in the title, then one in the title and one by the author, then one by the publisher;
+		// of the two titles with both words the shorter comes first
+		assertEquals(List.of("1", "4", "2", "3"), isbns("database systems"));
+		assertEquals(List.of("1", "4", "2", "3"), isbns("systems database"));
+	}
+
+	@Test
+	void unfinishedLastWordMatchesAsAPrefix() {
+		assertEquals(List.of("1", "4", "2", "3"), isbns("database syst"));
+		assertEquals("6", isbns("distrib").get(0));
+	}
+
+	@Test
+	void everyWordMustMatch() {
+		assertEquals(List.of("6"), isbns("distributed systems smith"));
+		assertTrue(isbns("database cooking").isEmpty());
+	}
+
+	@Test
+	void oneLetterTypoStillFindsTheTitle() {
+		// a letter changed, dropped, added, or swapped with its neighbour
+		assertEquals(List.of("6"), isbns("distrebuted"));
+		assertEquals(List.of("5"), isbns("cookng"));
+		assertEquals(List.of("5"), isbns("cookking for one"));
+		assertEquals(List.of("2", "4"), isbns("desgin"));
+		// the first word exact, the last unfinished and misspelt
+		assertEquals(List.of("3"), isbns("systems progar"));
+		// three letters are too few to tell a typo from another word
+		assertTrue(isbns("oen").isEmpty());
+	}
+
+	@Test
+	void wordFoundAsItIsIsNotTakenForATypo() {
+		index.put("7", "Desing Patterns", "Dee Sing", "Acme Press", 2007);
+		assertEquals(List.of("7"), isbns("desing"));
+		assertEquals(List.of("2", "4"), isbns("design"));
+	}
+
+	@Test
+	void accentsAndCaseAreIgnored() {
+		assertEquals(List.of("5"), isbns("EMILE zola"));
+	}
+
+	@Test
+	void limitKeepsTheBest() {
+		assertEquals(List.of("1", "4"), index.search("database systems", 2).stream().map(SearchHit::isbn).toList());
+	}
+
+	private List<String> isbns(String query) {
+		return index.search(query, 10).stream().map(SearchHit::isbn).toList();
+	}
+}
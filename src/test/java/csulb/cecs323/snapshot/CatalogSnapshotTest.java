@@ -0,0 +1,150 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.model.Isbn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every row of a snapshot is found through the hash indexes of its columns, changes give a new snapshot
+ * without touching the old one, and compacting them gives the same catalog in new columns.
+ */
+class CatalogSnapshotTest {
+	private static final int PUBLISHERS = 300;
+	private static final int AUTHORS = 1000;
+	private static final int BOOKS = 5000;
+	// long enough that its length takes two bytes in the column, and not ASCII
+	private static final String LONG_NAME = "Éditions du Livre Électronique ".repeat(6) + "東京";
+
+	private CatalogSnapshot snapshot;
+
+	@BeforeEach
+	void buildSnapshot() {
+		CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+		for (int i = 0; i < PUBLISHERS; i++) builder.addPublisher(publisher(i));
+		builder.addPublisher(new PublisherRow(LONG_NAME, "long@example.com", "555-0000"));
+		// the teams come before their members, which are resolved once every author is there
+		for (int i = AUTHORS - 1; i >= 0; i--) builder.addAuthor(author(i));
+		for (int i = 0; i < BOOKS; i++) builder.addBook(book(i));
+		// an author that was never added, as for a book written while the snapshot was read
+		builder.addBook(new BookRow(isbn(BOOKS), "Unresolved Book", 2001, "Missing Author", publisherName(0)));
+		snapshot = builder.build();
+	}
+
+	@Test
+	void everyRowIsFoundByItsKey() {
+		for (int i = 0; i < PUBLISHERS; i++) assertEquals(publisher(i), snapshot.getPublisher(publisherName(i)));
+		assertEquals("long@example.com", snapshot.getPublisher(LONG_NAME).email());
+		for (int i = 0; i < AUTHORS; i++) assertEquals(author(i), snapshot.getAuthor(authorName(i)));
+		for (int i = 0; i < BOOKS; i++) assertEquals(book(i), snapshot.getBook(isbn(i)));
+		assertEquals("Unresolved Book", snapshot.getBook(isbn(BOOKS)).title());
+
+		assertNull(snapshot.getPublisher("No Such Press"));
+		assertNull(snapshot.getAuthor(publisherName(0)));
+		assertNull(snapshot.getBook(isbn(BOOKS + 1)));
+		assertEquals(PUBLISHERS + 1, snapshot.publisherCount());
+		assertEquals(AUTHORS, snapshot.authorCount());
+		assertEquals(BOOKS + 1, snapshot.bookCount());
+	}
+
+	@Test
+	void bookIsFoundByAnyWayOfWritingItsIsbn() {
+		CatalogSnapshot.Builder builder = new CatalogSnapshot.Builder();
+		builder.addPublisher(publisher(0));
+		builder.addAuthor(author(1));
+		BookRow book = new BookRow("9780306406157", "Known Book", 2001, authorName(1), publisherName(0));
+		builder.addBook(book);
+		CatalogSnapshot small = builder.build();
+
+		assertEquals(book, small.getBook("0-306-40615-2"));
+		assertEquals(book, small.getBook("978 0 306 40615 7"));
+		assertThrows(IllegalArgumentException.class, () -> small.getBook("not an isbn"));
+	}
+
+	@Test
+	void changesGiveANewSnapshotAndLeaveTheOldOne() {
+		SnapshotChanges changes = new SnapshotChanges();
+		BookRow inserted = new BookRow(isbn(BOOKS + 1), "Inserted Book", 2020, authorName(1), publisherName(1));
+		BookRow updated = new BookRow(isbn(0), "Updated Title", 1999, authorName(2), publisherName(2));
+		changes.books.put(inserted.isbn(), inserted);
+		changes.books.put(updated.isbn(), updated);
+		changes.books.put(isbn(1), null);
+		// deleting what is not there changes no count
+		changes.books.put(isbn(BOOKS + 2), null);
+		changes.publishers.put(publisherName(3), new PublisherRow(publisherName(3), "new@example.com", "555-3333"));
+		changes.authors.put(authorName(4), null);
+
+		CatalogSnapshot changed = snapshot.withChanges(changes);
+
+		assertEquals(inserted, changed.getBook(inserted.isbn()));
+		assertEquals(updated, changed.getBook(isbn(0)));
+		assertNull(changed.getBook(isbn(1)));
+		assertEquals("new@example.com", changed.getPublisher(publisherName(3)).email());
+		assertNull(changed.getAuthor(authorName(4)));
+		assertEquals(BOOKS + 1, changed.bookCount());
+		assertEquals(PUBLISHERS + 1, changed.publisherCount());
+		assertEquals(AUTHORS - 1, changed.authorCount());
+
+		assertEquals(book(0), snapshot.getBook(isbn(0)));
+		assertEquals(book(1), snapshot.getBook(isbn(1)));
+		assertNull(snapshot.getBook(inserted.isbn()));
+		assertEquals(author(4), snapshot.getAuthor(authorName(4)));
+		assertEquals(BOOKS + 1, snapshot.bookCount());
+	}
+
+	@Test
+	void compactionFoldsTheChangesIntoNewColumns() {
+		CatalogSnapshot changed = snapshot;
+		for (int i = 0; i < BOOKS; i += 2) {
+			SnapshotChanges changes = new SnapshotChanges();
+			changes.books.put(isbn(i), i % 4 == 0 ? null : new BookRow(isbn(i), "Retitled " + i, 2000, authorName(0), publisherName(0)));
+			changed = changed.withChanges(changes);
+		}
+		assertTrue(changed.needsCompaction());
+
+		CatalogSnapshot compacted = changed.compact();
+		assertFalse(compacted.needsCompaction());
+		assertTrue(compacted.footprint() < changed.footprint());
+		assertEquals(changed.bookCount(), compacted.bookCount());
+		assertEquals(changed.authorCount(), compacted.authorCount());
+		assertEquals(changed.publisherCount(), compacted.publisherCount());
+		for (int i = 0; i <= BOOKS; i++) assertEquals(changed.getBook(isbn(i)), compacted.getBook(isbn(i)), isbn(i));
+		for (int i = 0; i < AUTHORS; i++) assertEquals(author(i), compacted.getAuthor(authorName(i)));
+		assertEquals(LONG_NAME, compacted.getPublisher(LONG_NAME).name());
+	}
+
+	private static String publisherName(int i) {
+		return "Publisher " + i;
+	}
+
+	private static PublisherRow publisher(int i) {
+		return new PublisherRow(publisherName(i), "publisher" + i + "@example.com", "555-" + i);
+	}
+
+	private static String authorName(int i) {
+		return "Author " + i;
+	}
+
+	/**
+	 * Every tenth author is a team of the next two, and every tenth after the fifth a writing group.
+	 */
+	private static AuthorRow author(int i) {
+		String email = "author" + i + "@example.com";
+		if (i % 10 == 0 && i + 2 < AUTHORS) {
+			return new AuthorRow(authorName(i), AuthorRow.AD_HOC_TEAM, email, null, 0, List.of(authorName(i + 1), authorName(i + 2)));
+		}
+		if (i % 10 == 5) return new AuthorRow(authorName(i), AuthorRow.WRITING_GROUP, email, "Head Writer " + i, 1950 + i % 50, List.of());
+		return new AuthorRow(authorName(i), AuthorRow.INDIVIDUAL_AUTHOR, email, null, 0, List.of());
+	}
+
+	private static String isbn(int i) {
+		return Isbn.format(Isbn.withCheckDigit(978_100_000_000L + i));
+	}
+
+	private static BookRow book(int i) {
+		return new BookRow(isbn(i), "Book " + i, 1990 + i % 30, authorName(i % AUTHORS), publisherName(i % PUBLISHERS));
+	}
+}
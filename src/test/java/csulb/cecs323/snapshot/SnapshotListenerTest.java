@@ -0,0 +1,170 @@
+package csulb.cecs323.snapshot;
+
+import csulb.cecs323.app.CatalogGenerator;
+import csulb.cecs323.app.CatalogService;
+import csulb.cecs323.model.Books;
+import csulb.cecs323.persistence.TestDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Books, authors and publishers inserted, updated and deleted through JPA reach the catalog snapshot
+ * when their transaction commits, and the snapshot then answers as the database does; a transaction
+ * that rolls back, even after flushing, leaves it as it was.
+ */
+class SnapshotListenerTest {
+	private static TestDatabase database;
+	private static String publisher;
+	private static String author;
+	private EntityManager manager;
+
+	@BeforeAll
+	static void createCatalog() throws InterruptedException {
+		database = TestDatabase.create();
+		new CatalogGenerator(database.getFactory(), new CatalogGenerator.Shape(200, 50, 5, 1.1, 1.1, 1990, 2020, 0.5, 4), 1, 1).generate();
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			publisher = manager.createNamedQuery("ReturnPublisherNames", String.class).setMaxResults(1).getSingleResult();
+			author = manager.createQuery("SELECT a.name FROM IndividualAuthor a ORDER BY a.name", String.class)
+					.setMaxResults(1).getSingleResult();
+		} finally {
+			manager.close();
+		}
+		// the snapshot can only be enabled once, so every test of it shares this database
+		assertNotNull(CatalogSnapshots.enable(database.getFactory()).join());
+	}
+
+	@AfterAll
+	static void dropCatalog() {
+		database.close();
+	}
+
+	@BeforeEach
+	void createManager() {
+		manager = database.getFactory().createEntityManager();
+	}
+
+	@AfterEach
+	void closeManager() {
+		if (manager.getTransaction().isActive()) manager.getTransaction().rollback();
+		manager.close();
+	}
+
+	@Test
+	void loadedSnapshotMatchesTheDatabase() {
+		assertMatchesDatabase();
+	}
+
+	@Test
+	void bookChangesReachTheSnapshotOnlyWhenCommitted() {
+		String isbn = "9780306406157";
+		int books = snapshot().bookCount();
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).addBook(book(isbn, "Snapshot Rollback"));
+		manager.flush();
+		manager.getTransaction().rollback();
+		assertNull(snapshot().getBook(isbn));
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).addBook(book(isbn, "Snapshot Insert"));
+		manager.getTransaction().commit();
+		assertEquals(new BookRow(isbn, "Snapshot Insert", 2001, author, publisher), snapshot().getBook("0-306-40615-2"));
+		assertEquals(books + 1, snapshot().bookCount());
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).updateBook(isbn, Map.of("title", "Snapshot Not Updated"));
+		manager.flush();
+		manager.getTransaction().rollback();
+		assertEquals("Snapshot Insert", snapshot().getBook(isbn).title());
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).updateBook(isbn, Map.of("title", "Snapshot Update", "yearPublished", "2002"));
+		manager.getTransaction().commit();
+		assertEquals(new BookRow(isbn, "Snapshot Update", 2002, author, publisher), snapshot().getBook(isbn));
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).deleteBook(isbn);
+		manager.getTransaction().commit();
+		assertNull(snapshot().getBook(isbn));
+		assertEquals(books, snapshot().bookCount());
+
+		assertMatchesDatabase();
+	}
+
+	@Test
+	void publisherAndTeamChangesReachTheSnapshotOnlyWhenCommitted() {
+		manager.getTransaction().begin();
+		new CatalogService(manager).addPublisher(Map.of("name", "Snapshot Press", "email", "snapshot@example.com", "phone", "555-0101"));
+		manager.flush();
+		manager.getTransaction().rollback();
+		assertNull(snapshot().getPublisher("Snapshot Press"));
+
+		manager.getTransaction().begin();
+		new CatalogService(manager).addPublisher(Map.of("name", "Snapshot Press", "email", "snapshot@example.com", "phone", "555-0101"));
+		new CatalogService(manager).addAuthor(Map.of("name", "Snapshot Team", "type", "AdHocTeam", "email", "team@example.com",
+				"members", author));
+		manager.getTransaction().commit();
+		assertEquals(new PublisherRow("Snapshot Press", "snapshot@example.com", "555-0101"), snapshot().getPublisher("Snapshot Press"));
+		assertEquals(List.of(author), snapshot().getAuthor("Snapshot Team").members());
+
+		manager.getTransaction().begin();
+		manager.remove(new CatalogService(manager).getAuthor("Snapshot Team"));
+		manager.getTransaction().commit();
+		assertNull(snapshot().getAuthor("Snapshot Team"));
+
+		assertMatchesDatabase();
+	}
+
+	private static CatalogSnapshot snapshot() {
+		return CatalogSnapshots.current();
+	}
+
+	/**
+	 * Every book, author and publisher in the database is in the snapshot as the database has it.
+	 */
+	private static void assertMatchesDatabase() {
+		database.getFactory().getCache().evictAll();
+		EntityManager manager = database.getFactory().createEntityManager();
+		try {
+			List<Books> books = manager.createNamedQuery("ReturnAllBooks", Books.class).getResultList();
+			for (Books book : books) assertEquals(BookRow.of(book), snapshot().getBook(book.getISBN()));
+			assertEquals(books.size(), snapshot().bookCount());
+
+			List<String> authors = manager.createQuery("SELECT a.name FROM Authoring_Entities a", String.class).getResultList();
+			for (String name : authors) {
+				assertEquals(membersSorted(AuthorRow.of(new CatalogService(manager).getAuthor(name))),
+						membersSorted(snapshot().getAuthor(name)), name);
+			}
+			assertEquals(authors.size(), snapshot().authorCount());
+
+			List<String> publishers = manager.createNamedQuery("ReturnPublisherNames", String.class).getResultList();
+			for (String name : publishers) assertEquals(PublisherRow.of(new CatalogService(manager).getPublisher(name)), snapshot().getPublisher(name));
+			assertEquals(publishers.size(), snapshot().publisherCount());
+		} finally {
+			manager.close();
+		}
+	}
+
+	/**
+	 * The members of a team are a set, so the snapshot may hold them in another order.
+	 */
+	private static AuthorRow membersSorted(AuthorRow author) {
+		if (author == null) return null;
+		return new AuthorRow(author.name(), author.type(), author.email(), author.headWriter(), author.yearFormed(),
+				author.members().stream().sorted().toList());
+	}
+
+	private static Map<String, String> book(String isbn, String title) {
+		return Map.of("isbn", isbn, "title", title, "yearPublished", "2001", "author", author, "publisher", publisher);
+	}
+}
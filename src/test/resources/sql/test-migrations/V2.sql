@@ -0,0 +1,2 @@
+-- a change made after the baseline, for SchemaMigratorTest
+ALTER TABLE PUBLISHERS ADD COLUMN WEBSITE VARCHAR(120)